@@ -0,0 +1,69 @@
+package com.omar.mylearnapp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+@Configuration
+public class PersistenceConfig implements HibernatePropertiesCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistenceConfig.class);
+
+    // Must match the allocationSize of the @SequenceGenerator declarations
+    private static final int ALLOCATION_SIZE = 50;
+
+    // Sequence (or MySQL emulation table) -> table whose ids it generates
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "response_seq", "responses",
+            "quiz_attempt_seq", "quiz_attempts",
+            "question_seq", "questions",
+            "option_seq", "options",
+            "topic_seq", "topics"
+    );
+
+    @Value("${quiz.jdbc.batch-size:50}")
+    private int batchSize;
+
+    @Value("${quiz.jdbc.log-statistics:false}")
+    private boolean logStatistics;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        // Explicit spring.jpa.properties.* settings still win over these defaults
+        hibernateProperties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+        hibernateProperties.putIfAbsent("hibernate.order_inserts", true);
+        hibernateProperties.putIfAbsent("hibernate.order_updates", true);
+        // Logs the number of statements and JDBC batches executed per session (e.g. per submit)
+        hibernateProperties.putIfAbsent("hibernate.generate_statistics", logStatistics);
+    }
+
+    /**
+     * MySQL has no native sequences, so Hibernate emulates them with one-row tables starting at 1.
+     * Databases created while ids were still IDENTITY columns already contain rows, so the
+     * emulation tables are moved past the current max id before the first insert.
+     */
+    @Bean
+    public ApplicationRunner sequenceAligner(JdbcTemplate jdbcTemplate) {
+        return args -> SEQUENCES.forEach((sequence, table) -> {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                long nextValue = (maxId != null ? maxId : 0) + ALLOCATION_SIZE + 1;
+                int updated = jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", nextValue, nextValue);
+                if (updated > 0) {
+                    log.info("Moved {} to {} to stay ahead of existing {} rows", sequence, nextValue, table);
+                }
+            } catch (DataAccessException e) {
+                // Native sequences (no emulation table) need no alignment
+                log.debug("Skipping alignment of {}: {}", sequence, e.getMessage());
+            }
+        });
+    }
+}
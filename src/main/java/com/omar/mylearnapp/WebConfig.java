@@ -13,7 +13,8 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addMapping("/api/**")  // Specify the API path
                 .allowedOrigins("http://localhost:3000")  // Your frontend URL (Next.js)
                 .allowedMethods("GET", "POST", "PUT", "DELETE")  // Allow specific HTTP methods
-                .allowedHeaders("*");  // Allow all headers
+                .allowedHeaders("*")  // Allow all headers
+                .exposedHeaders("X-Next-Cursor");  // Let the frontend read the pagination cursor
     }
 }
 
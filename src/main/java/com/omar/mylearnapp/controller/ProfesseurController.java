@@ -1,6 +1,7 @@
 package com.omar.mylearnapp.controller;
 
 import com.omar.mylearnapp.dto.QuizDTO;
+import com.omar.mylearnapp.dto.QuizSummary;
 import com.omar.mylearnapp.model.Question;
 import com.omar.mylearnapp.model.Quiz;
 import com.omar.mylearnapp.model.User;
@@ -11,10 +12,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/professeur")
@@ -44,17 +45,10 @@ public class ProfesseurController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("L'utilisateur n'est pas un professeur");
         }
 
-        List<Quiz> quizzes = quizService.getQuizzesByProfessor(professeur.getId());
+        // Summary rows carry the topic name and question count, fetched in a single query
+        List<QuizSummary> quizzes = quizService.getQuizSummariesByProfessor(professeur.getId());
 
-        // Ensure each quiz has its topic properly loaded before converting to DTO
-        List<QuizDTO> quizDTOs = quizzes.stream()
-                .map(quiz -> {
-                    // Make sure topic is not null in the DTO if it exists in the entity
-                    return QuizDTO.fromQuiz(quiz);
-                })
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(quizDTOs);
+        return ResponseEntity.ok(quizzes);
     }
 
     /**
@@ -214,7 +208,8 @@ public class ProfesseurController {
     @GetMapping("/{clerkId}/quizzes/{quizId}")
     public ResponseEntity<?> getQuizById(
             @PathVariable String clerkId,
-            @PathVariable Long quizId) {
+            @PathVariable Long quizId,
+            WebRequest request) {
 
         Optional<User> professeurOpt = userService.findByClerkId(clerkId);
 
@@ -223,7 +218,22 @@ public class ProfesseurController {
         }
 
         User professeur = professeurOpt.get();
-        Optional<Quiz> quizOpt = quizService.getQuizById(quizId);
+
+        // Answer revalidations from the version alone, before loading questions and options
+        Optional<Object[]> versionAndOwner = quizService.getQuizVersionAndOwner(quizId);
+        if (versionAndOwner.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Quiz non trouvé");
+        }
+        // Owner first, a 304 would otherwise confirm the quiz and its version to anyone holding the tag
+        if (!professeur.getId().equals(versionAndOwner.get()[1])) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Ce quiz ne vous appartient pas");
+        }
+        String etag = quizETag(quizId, (Long) versionAndOwner.get()[0]);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        Optional<Quiz> quizOpt = quizService.getQuizDetail(quizId);
 
         if (quizOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Quiz non trouvé");
@@ -237,6 +247,10 @@ public class ProfesseurController {
         }
 
         // Use QuizDTO to avoid infinite recursion
-        return ResponseEntity.ok(QuizDTO.fromQuiz(quiz));
+        return ResponseEntity.ok().eTag(quizETag(quizId, quiz.getVersion())).body(QuizDTO.fromQuiz(quiz));
+    }
+
+    private static String quizETag(Long quizId, long version) {
+        return "quiz-" + quizId + "-v" + version;
     }
 }
\ No newline at end of file
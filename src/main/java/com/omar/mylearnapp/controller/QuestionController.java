@@ -3,9 +3,11 @@ package com.omar.mylearnapp.controller;
 import com.omar.mylearnapp.model.Question;
 import com.omar.mylearnapp.service.QuestionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/questions")
@@ -35,7 +37,7 @@ public class QuestionController {
     }
 
     @DeleteMapping("/{id}")
-    public void deleteQuestion(@PathVariable Long id) {
-        questionService.deleteQuestion(id);
+    public ResponseEntity<Map<String, Long>> deleteQuestion(@PathVariable Long id) {
+        return ResponseEntity.ok(questionService.deleteQuestion(id));
     }
 }
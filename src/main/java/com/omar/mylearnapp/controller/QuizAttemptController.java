@@ -3,11 +3,14 @@ package com.omar.mylearnapp.controller;
 import com.omar.mylearnapp.dto.QuizAttemptDTO;
 import com.omar.mylearnapp.model.QuizAttempt;
 import com.omar.mylearnapp.model.Response;
+import com.omar.mylearnapp.service.AttemptTimerService;
 import com.omar.mylearnapp.service.QuizAttemptService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -21,6 +24,9 @@ public class QuizAttemptController {
     @Autowired
     private QuizAttemptService quizAttemptService;
 
+    @Autowired
+    private AttemptTimerService attemptTimerService;
+
     @PostMapping("/start")
     public ResponseEntity<Map<String, Object>> startQuizAttempt(
             @RequestParam String clerkId,
@@ -47,7 +53,10 @@ public class QuizAttemptController {
             @RequestBody Map<Long, Long> responses) {
 
         try {
-            QuizAttempt attempt = quizAttemptService.submitQuizAttempt(attemptId, responses);
+            // In write-behind mode the score is returned before the rows are written
+            QuizAttempt attempt = quizAttemptService.isWriteBehindEnabled()
+                    ? quizAttemptService.submitQuizAttemptWriteBehind(attemptId, responses)
+                    : quizAttemptService.submitQuizAttempt(attemptId, responses);
 
             Map<String, Object> result = Map.of(
                     "attemptId", attempt.getId(),
@@ -93,6 +102,28 @@ public class QuizAttemptController {
         }
     }
 
+    /**
+     * Countdown stream: "remaining" events every second, then "expired" (or "closed" once submitted)
+     */
+    @GetMapping("/{attemptId}/timer")
+    public ResponseEntity<?> streamTimer(@PathVariable Long attemptId) {
+        try {
+            SseEmitter emitter = attemptTimerService.subscribe(attemptId);
+            return ResponseEntity.ok(emitter);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).contentType(MediaType.APPLICATION_JSON).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{attemptId}/percentile")
+    public ResponseEntity<?> getAttemptPercentile(@PathVariable Long attemptId) {
+        try {
+            return ResponseEntity.ok(quizAttemptService.getAttemptPercentile(attemptId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/user/{clerkId}")
     public ResponseEntity<List<QuizAttemptDTO>> getUserAttempts(@PathVariable String clerkId) {
         List<QuizAttempt> attempts = quizAttemptService.getUserAttempts(clerkId);
@@ -1,22 +1,34 @@
 package com.omar.mylearnapp.controller;
 
+import com.omar.mylearnapp.dto.CursorPage;
 import com.omar.mylearnapp.dto.QuizDTO;
+import com.omar.mylearnapp.dto.QuizSummary;
 import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.model.QuizPurgeJob;
 import com.omar.mylearnapp.model.User;
 import com.omar.mylearnapp.model.response.QuizResponse;
+import com.omar.mylearnapp.service.AiQuizJob;
+import com.omar.mylearnapp.service.AiQuizJobService;
 import com.omar.mylearnapp.service.GeminiService;
+import com.omar.mylearnapp.service.PlayerViewCache;
+import com.omar.mylearnapp.service.QuizImportService;
 import com.omar.mylearnapp.service.QuizService;
 import com.omar.mylearnapp.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/quizzes")
@@ -31,20 +43,43 @@ public class QuizController {
     @Autowired
     private GeminiService geminiService;
 
+    @Autowired
+    private PlayerViewCache playerViewCache;
+
+    @Autowired
+    private QuizImportService quizImportService;
+
+    @Autowired
+    private AiQuizJobService aiQuizJobService;
+
+    // Catalog listings are keyset-paginated: ?after=<id>&limit=<n>, the next cursor is returned in this header.
+    // Without either parameter the first page holds QuizService.MAX_PAGE_SIZE quizzes.
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @GetMapping
-    public ResponseEntity<List<QuizDTO>> getAllQuizzes() {
-        List<Quiz> quizzes = quizService.getAllQuizzes();
-        List<QuizDTO> response = quizzes.stream()
-                .map(QuizDTO::fromQuiz)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<List<QuizSummary>> getAllQuizzes(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<QuizSummary> page = quizService.getQuizzesPage(after, limit);
+        return pageResponse(page, etag);
     }
     @GetMapping("/topicn/{name}")
-    public ResponseEntity<List<QuizDTO>> getQuizzesByTopicName(@PathVariable String name) {
-        List<QuizDTO> response = quizService.getQuizzesByTopic(name).stream()
-                .map(QuizDTO::fromQuiz)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<List<QuizSummary>> getQuizzesByTopicName(
+            @PathVariable String name,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<QuizSummary> page = quizService.getQuizzesByTopicNamePage(name, after, limit);
+        return pageResponse(page, etag);
     }
 
 
@@ -69,13 +104,13 @@ public class QuizController {
     }
 
     @GetMapping("/professor/{professorId}")
-    public ResponseEntity<List<QuizDTO>>
-    getQuizzesByProfessor(@PathVariable Long professorId) {
-        List<Quiz> quizzes = quizService.getQuizzesByProfessor(professorId);
-        List<QuizDTO> response = quizzes.stream()
-                .map(QuizDTO::fromQuiz)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<List<QuizSummary>>
+    getQuizzesByProfessor(@PathVariable Long professorId, WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(quizService.getQuizSummariesByProfessor(professorId));
     }
 
     @PostMapping
@@ -90,22 +125,96 @@ public class QuizController {
         return new ResponseEntity<>(QuizResponse.fromQuiz(createdQuiz), HttpStatus.CREATED);
     }
 
+    /**
+     * Bulk import of complete quizzes, one JSON quiz per line (NDJSON), optionally owned by a professor
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importQuizzes(InputStream body, @RequestParam(required = false) String professorId) {
+        User professor = null;
+        if (professorId != null) {
+            Optional<User> user = userService.findByClerkId(professorId);
+            if (user.isEmpty()) {
+                return ResponseEntity.status(404).body(Map.of("error", "Professor not found"));
+            }
+            if (!"professeur".equalsIgnoreCase(user.get().getRole())) {
+                return ResponseEntity.status(403).body(Map.of("error", "User is not a professor"));
+            }
+            professor = user.get();
+        }
+        return ResponseEntity.ok(quizImportService.importQuizzes(body, professor));
+    }
+
     @GetMapping("/topic/{topicId}")
-    public ResponseEntity<List<QuizDTO>> getQuizzesByTopic(@PathVariable Long topicId) {
-        List<Quiz> quizzes = quizService.getQuizzesByTopic(topicId);
-        List<QuizDTO> response = quizzes.stream()
-                .map(QuizDTO::fromQuiz)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<List<QuizSummary>> getQuizzesByTopic(
+            @PathVariable Long topicId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<QuizSummary> page = quizService.getQuizzesByTopicPage(topicId, after, limit);
+        return pageResponse(page, etag);
     }
 
     @GetMapping("/difficulty/{difficulty}")
-    public ResponseEntity<List<QuizDTO>> getQuizzesByDifficulty(@PathVariable String difficulty) {
-        List<Quiz> quizzes = quizService.getQuizzesByDifficulty(difficulty);
-        List<QuizDTO> response = quizzes.stream()
-                .map(QuizDTO::fromQuiz)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<List<QuizSummary>> getQuizzesByDifficulty(
+            @PathVariable String difficulty,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<QuizSummary> page = quizService.getQuizzesByDifficultyPage(difficulty, after, limit);
+        return pageResponse(page, etag);
+    }
+
+    private <T> ResponseEntity<List<T>> pageResponse(CursorPage<T> page, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+        }
+        return response.body(page.getItems());
+    }
+
+    // Listings embed quiz, topic and question count data, so any quiz or topic write changes the tag.
+    // The embedded professor names are not covered, see QuizService.getCatalogFingerprint
+    private String catalogETag() {
+        return "quizzes-" + quizService.getCatalogFingerprint();
+    }
+
+    /**
+     * Student view of a quiz (questions and options without the answers), served from pre-encoded bytes
+     */
+    @GetMapping("/{id}/play")
+    public ResponseEntity<?> getPlayerView(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        Optional<PlayerViewCache.PlayerView> view = playerViewCache.getPlayerView(id);
+        if (view.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Quiz not found"));
+        }
+
+        boolean gzip = view.get().hasGzip() && PlayerViewCache.acceptsGzip(acceptEncoding);
+        // Each encoding is its own representation, so it gets its own strong tag
+        String etag = "quiz-" + id + "-v" + view.get().getVersion() + (gzip ? "-play-gz" : "-play");
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(view.get().getGzip());
+        }
+        return response.body(view.get().getJson());
     }
 
     @PutMapping("/{id}")
@@ -124,13 +233,24 @@ public class QuizController {
             return ResponseEntity.status(404).body(Map.of("error", "Quiz not found"));
         }
 
-        quizService.deleteQuiz(id);
-        return ResponseEntity.ok(Map.of("message", "Quiz deleted successfully"));
+        QuizPurgeJob job = quizService.deleteQuiz(id);
+        return ResponseEntity.accepted().body(Map.of("message", "Quiz deleted, its content is being purged", "job", job));
+    }
+
+    @GetMapping("/{id}/deletion")
+    public ResponseEntity<?> getDeletionJob(@PathVariable Long id) {
+        return quizService.getDeletionJob(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "No deletion job for this quiz")));
     }
 
 
+    /**
+     * Identical requests are answered from the cache of generated quizzes, force=true asks Gemini again
+     */
     @PostMapping("/generate-with-ai")
-    public ResponseEntity<?> generateQuizWithAI(@RequestBody Map<String, Object> request, @RequestParam String professorId) {
+    public ResponseEntity<?> generateQuizWithAI(@RequestBody Map<String, Object> request, @RequestParam String professorId,
+                                                @RequestParam(defaultValue = "false") boolean force) {
         try {
             // Extract parameters from request
             String sourceType = (String) request.get("sourceType");
@@ -150,7 +270,7 @@ public class QuizController {
             }
 
             // Generate quiz using Gemini
-            Quiz generatedQuiz = geminiService.generateQuiz(sourceType, content, numQuestions, difficulty, category);
+            Quiz generatedQuiz = geminiService.generateQuiz(sourceType, content, numQuestions, difficulty, category, force);
 
             // Set professor
             generatedQuiz.setProfessor(professor.get());
@@ -165,4 +285,58 @@ public class QuizController {
             ));
         }
     }
+
+    /**
+     * Same as generate-with-ai, in the background: returns the job to poll or subscribe to right away
+     */
+    @PostMapping("/generate-with-ai/jobs")
+    public ResponseEntity<?> submitAiGenerationJob(@RequestBody Map<String, Object> request, @RequestParam String professorId,
+                                                   @RequestParam(defaultValue = "false") boolean force) {
+        String sourceType = (String) request.get("sourceType");
+        String content = (String) request.get("content");
+        String difficulty = (String) request.get("difficulty");
+        String category = (String) request.getOrDefault("category", "Programmation");
+        if (!(request.get("numQuestions") instanceof Number numQuestions) || content == null || content.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "content and numQuestions are required"));
+        }
+
+        Optional<User> professor = userService.findByClerkId(professorId);
+        if (!professor.isPresent()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Professor not found"));
+        }
+
+        if (!"professeur".equalsIgnoreCase(professor.get().getRole())) {
+            return ResponseEntity.status(403).body(Map.of("error", "User is not a professor"));
+        }
+
+        try {
+            AiQuizJob job = aiQuizJobService.submit(sourceType, content, numQuestions.intValue(), difficulty, category, force, professor.get());
+            return ResponseEntity.accepted().body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", "Too many quiz generations in progress, try again later"));
+        }
+    }
+
+    @GetMapping("/generate-with-ai/jobs/{jobId}")
+    public ResponseEntity<?> getAiGenerationJob(@PathVariable String jobId) {
+        return aiQuizJobService.getJob(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Generation job not found")));
+    }
+
+    /**
+     * Job stream: a "status" event, a "question" event per question as the model writes it,
+     * then "done" with the generated quiz or "failed" with the error
+     */
+    @GetMapping("/generate-with-ai/jobs/{jobId}/events")
+    public ResponseEntity<?> streamAiGenerationJob(@PathVariable String jobId) {
+        try {
+            SseEmitter emitter = aiQuizJobService.subscribe(jobId);
+            return ResponseEntity.ok(emitter);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).contentType(MediaType.APPLICATION_JSON).body(Map.of("error", e.getMessage()));
+        }
+    }
 }
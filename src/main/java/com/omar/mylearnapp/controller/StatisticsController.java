@@ -1,10 +1,12 @@
 package com.omar.mylearnapp.controller;
 
+import com.omar.mylearnapp.dto.MissedQuestionReport;
 import com.omar.mylearnapp.service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -24,6 +26,23 @@ public class StatisticsController {
         }
     }
 
+    @GetMapping("/quiz/{quizId}/distribution")
+    public ResponseEntity<Map<String, Object>> getQuizDistribution(@PathVariable Long quizId) {
+        try {
+            return ResponseEntity.ok(statisticsService.getQuizDistribution(quizId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/quiz/{quizId}/missed-questions")
+    public ResponseEntity<List<MissedQuestionReport>> getMostMissedQuestions(
+            @PathVariable Long quizId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean options) {
+        return ResponseEntity.ok(statisticsService.getMostMissedQuestions(quizId, limit, options));
+    }
+
     @GetMapping("/question/{questionId}")
     public ResponseEntity<Map<String, Object>> getQuestionStatistics(@PathVariable Long questionId) {
         try {
@@ -39,4 +58,14 @@ public class StatisticsController {
         Map<String, Object> statistics = statisticsService.getSystemStatistics();
         return ResponseEntity.ok(statistics);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/quiz-stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildQuizStats(@RequestParam(required = false) Long quizId) {
+        return ResponseEntity.ok(statisticsService.rebuildQuizStats(quizId));
+    }
+
+    @GetMapping("/runtime")
+    public ResponseEntity<Map<String, Object>> getRuntimeStatistics() {
+        return ResponseEntity.ok(statisticsService.getRuntimeStatistics());
+    }
+}
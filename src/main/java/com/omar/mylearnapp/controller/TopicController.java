@@ -4,9 +4,11 @@ import com.omar.mylearnapp.dto.TopicDTO;
 import com.omar.mylearnapp.model.Topic;
 import com.omar.mylearnapp.service.TopicService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -30,34 +32,51 @@ public class TopicController {
     }
 
     @GetMapping
-    public ResponseEntity<List<TopicDTO>> getAllTopics() {
+    public ResponseEntity<List<TopicDTO>> getAllTopics(WebRequest request) {
+        String etag = "topics-" + topicService.getTopicsFingerprint();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         List<Topic> topics=topicService.getAllTopics();
         List<TopicDTO> dtos = topics.stream()
                 .map(TopicDTO::fromTopic)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok().eTag(etag).body(dtos);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getTopicById(@PathVariable Long id) {
-        Optional<Topic> topic = topicService.getTopicById(id);
-        return topic.map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(404).body((Topic) Map.of("error", "Topic not found")));
+    public ResponseEntity<?> getTopicById(@PathVariable Long id, WebRequest request) {
+        Optional<Long> version = topicService.getTopicVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Topic not found"));
+        }
+        String etag = "topic-" + id + "-v" + version.get();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        // The DTO leaves out the quizzes, which the topic version does not cover
+        return topicService.getTopicById(id)
+                .<ResponseEntity<?>>map(topic -> ResponseEntity.ok().eTag(etag).body(TopicDTO.fromTopic(topic)))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Topic not found")));
     }
 
 
     @PostMapping("/bulk")
     public ResponseEntity<List<Topic>> createMultipleTopics(@RequestBody List<Topic> topics){
-        List<Topic> existingTopics = topics.stream()
-                .filter(topic -> topicService.existsByName(topic.getName()))
-                .collect(Collectors.toList());
+        List<Topic> existingTopics = topicService.findConflictingTopics(topics);
 
         // If there are existing topics with the same name, return a Conflict status
         if (!existingTopics.isEmpty()) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(existingTopics);
         }
 
-        List<Topic> createdTopics = topicService.createMultipleTopics(topics);
+        List<Topic> createdTopics;
+        try {
+            createdTopics = topicService.createMultipleTopics(topics);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request took one of the names, caught by the unique index
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(topicService.findConflictingTopics(topics));
+        }
         return new ResponseEntity<>(createdTopics, HttpStatus.CREATED);
     }
 
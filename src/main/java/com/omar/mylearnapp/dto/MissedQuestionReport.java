@@ -0,0 +1,115 @@
+package com.omar.mylearnapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One row of the most-missed-questions report, built directly by the report query.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MissedQuestionReport {
+    private Long questionId;
+    private String questionText;
+    private long missCount;
+    private long totalCount;
+    private double missRate;
+    private List<OptionMisses> options;
+
+    public MissedQuestionReport() {
+    }
+
+    public MissedQuestionReport(Long questionId, String questionText, Long missCount, Long totalCount) {
+        this.questionId = questionId;
+        this.questionText = questionText;
+        this.missCount = missCount != null ? missCount : 0;
+        this.totalCount = totalCount != null ? totalCount : 0;
+        this.missRate = this.totalCount > 0 ? (double) this.missCount / this.totalCount : 0;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    public void setQuestionText(String questionText) {
+        this.questionText = questionText;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public double getMissRate() {
+        return missRate;
+    }
+
+    public void setMissRate(double missRate) {
+        this.missRate = missRate;
+    }
+
+    public List<OptionMisses> getOptions() {
+        return options;
+    }
+
+    public void setOptions(List<OptionMisses> options) {
+        this.options = options;
+    }
+
+    /**
+     * Wrong answers of a question, per selected option.
+     */
+    public static class OptionMisses {
+        private Long questionId;
+        private Long optionId;
+        private String optionText;
+        private long count;
+
+        public OptionMisses() {
+        }
+
+        public OptionMisses(Long questionId, Long optionId, String optionText, Long count) {
+            this.questionId = questionId;
+            this.optionId = optionId;
+            this.optionText = optionText;
+            this.count = count != null ? count : 0;
+        }
+
+        @JsonIgnore
+        public Long getQuestionId() {
+            return questionId;
+        }
+
+        public Long getOptionId() {
+            return optionId;
+        }
+
+        public String getOptionText() {
+            return optionText;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.omar.mylearnapp.dto;
+
+/**
+ * Lightweight quiz listing row, fetched with a single query (no questions, options or professor entity).
+ */
+public interface QuizSummary {
+    Long getId();
+
+    String getTitle();
+
+    String getDifficulty();
+
+    String getCategory();
+
+    String getIcon();
+
+    String getColor();
+
+    Integer getTimeLimit();
+
+    Long getTopicId();
+
+    String getTopicName();
+
+    String getProfessorName();
+
+    Integer getQuestionCount();
+}
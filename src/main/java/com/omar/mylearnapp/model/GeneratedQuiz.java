@@ -0,0 +1,67 @@
+package com.omar.mylearnapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Quiz JSON returned by the model, stored under the SHA-256 of everything that went into the
+ * prompt so that the same request is answered without calling Gemini again.
+ */
+@Entity
+@Table(name = "generated_quizzes", indexes = @Index(name = "idx_generated_quizzes_created", columnList = "createdAt"))
+public class GeneratedQuiz {
+
+    @Id
+    @Column(length = 64)
+    private String contentKey;
+
+    private String modelId;
+
+    @Lob
+    private String quizJson;
+
+    private LocalDateTime createdAt;
+
+    public GeneratedQuiz() {
+    }
+
+    public GeneratedQuiz(String contentKey, String modelId, String quizJson, LocalDateTime createdAt) {
+        this.contentKey = contentKey;
+        this.modelId = modelId;
+        this.quizJson = quizJson;
+        this.createdAt = createdAt;
+    }
+
+    public String getContentKey() {
+        return contentKey;
+    }
+
+    public void setContentKey(String contentKey) {
+        this.contentKey = contentKey;
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+    public void setModelId(String modelId) {
+        this.modelId = modelId;
+    }
+
+    public String getQuizJson() {
+        return quizJson;
+    }
+
+    public void setQuizJson(String quizJson) {
+        this.quizJson = quizJson;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,52 @@
+package com.omar.mylearnapp.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Persisted response counts of one option, flushed periodically from the in-memory counters.
+ */
+@Entity
+@Table(name = "question_option_stats", indexes = @Index(name = "idx_option_stats_question", columnList = "question_id"))
+public class QuestionOptionStats {
+    @Id
+    private Long optionId;
+
+    private Long questionId;
+    private long responseCount;
+    private long correctCount;
+
+    public QuestionOptionStats() {
+    }
+
+    public Long getOptionId() {
+        return optionId;
+    }
+
+    public void setOptionId(Long optionId) {
+        this.optionId = optionId;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public long getResponseCount() {
+        return responseCount;
+    }
+
+    public void setResponseCount(long responseCount) {
+        this.responseCount = responseCount;
+    }
+
+    public long getCorrectCount() {
+        return correctCount;
+    }
+
+    public void setCorrectCount(long correctCount) {
+        this.correctCount = correctCount;
+    }
+}
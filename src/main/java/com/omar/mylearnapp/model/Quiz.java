@@ -1,12 +1,27 @@
 package com.omar.mylearnapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "quizzes")
+@NamedEntityGraph(name = Quiz.GRAPH_LISTING, attributeNodes = {
+        @NamedAttributeNode("topic"),
+        @NamedAttributeNode("professor")
+})
+@NamedEntityGraph(name = Quiz.GRAPH_DETAIL, attributeNodes = {
+        @NamedAttributeNode("topic"),
+        @NamedAttributeNode("professor"),
+        @NamedAttributeNode("questions")
+})
 public class Quiz {
+    // Fetch plans used by QuizRepository, options are loaded by a second query (two bags cannot be join fetched together)
+    public static final String GRAPH_LISTING = "Quiz.listing";
+    public static final String GRAPH_DETAIL = "Quiz.detail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -19,6 +34,13 @@ public class Quiz {
     private String category;
     private int timeLimit;
 
+    // Bumped by every write to the entity or its content, used as the ETag of its resources
+    private long version;
+
+    // Set when the quiz is deleted, its rows are then purged in the background by QuizPurgeService
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
     @ManyToOne
     @JoinColumn(name = "topic_id")
     private Topic topic;
@@ -143,4 +165,20 @@ public class Quiz {
     public void setProfessor(User professor) {
         this.professor = professor;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
 }
@@ -0,0 +1,100 @@
+package com.omar.mylearnapp.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One bucket of a per-quiz histogram of completed attempts: the score itself for SCORE,
+ * a fixed-width range of seconds taken for TIME.
+ */
+@Entity
+@Table(name = "quiz_histogram")
+@IdClass(QuizHistogramBucket.Key.class)
+public class QuizHistogramBucket {
+
+    public static final String SCORE = "SCORE";
+    public static final String TIME = "TIME";
+
+    @Id
+    private Long quizId;
+
+    @Id
+    @Column(length = 8)
+    private String type;
+
+    @Id
+    private int bucket;
+
+    private long attemptCount;
+
+    public QuizHistogramBucket() {
+    }
+
+    public QuizHistogramBucket(Long quizId, String type, int bucket, long attemptCount) {
+        this.quizId = quizId;
+        this.type = type;
+        this.bucket = bucket;
+        this.attemptCount = attemptCount;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(Long quizId) {
+        this.quizId = quizId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(int bucket) {
+        this.bucket = bucket;
+    }
+
+    public long getAttemptCount() {
+        return attemptCount;
+    }
+
+    public void setAttemptCount(long attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+
+    public static class Key implements Serializable {
+        private Long quizId;
+        private String type;
+        private int bucket;
+
+        public Key() {
+        }
+
+        public Key(Long quizId, String type, int bucket) {
+            this.quizId = quizId;
+            this.type = type;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return bucket == key.bucket && Objects.equals(quizId, key.quizId) && Objects.equals(type, key.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(quizId, type, bucket);
+        }
+    }
+}
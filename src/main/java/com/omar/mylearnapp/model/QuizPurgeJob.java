@@ -0,0 +1,123 @@
+package com.omar.mylearnapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background removal of a tombstoned quiz and its rows. Persisted so that unfinished purges are
+ * picked up again after a restart.
+ */
+@Entity
+@Table(name = "quiz_purge_jobs")
+public class QuizPurgeJob {
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    @Id
+    private Long quizId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private Status status;
+
+    private LocalDateTime requestedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    private long responsesDeleted;
+    private long attemptsDeleted;
+    private long questionsDeleted;
+    private long optionsDeleted;
+
+    private String lastError;
+
+    public QuizPurgeJob() {
+    }
+
+    public QuizPurgeJob(Long quizId, LocalDateTime requestedAt) {
+        this.quizId = quizId;
+        this.status = Status.PENDING;
+        this.requestedAt = requestedAt;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(Long quizId) {
+        this.quizId = quizId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(LocalDateTime requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getResponsesDeleted() {
+        return responsesDeleted;
+    }
+
+    public void setResponsesDeleted(long responsesDeleted) {
+        this.responsesDeleted = responsesDeleted;
+    }
+
+    public long getAttemptsDeleted() {
+        return attemptsDeleted;
+    }
+
+    public void setAttemptsDeleted(long attemptsDeleted) {
+        this.attemptsDeleted = attemptsDeleted;
+    }
+
+    public long getQuestionsDeleted() {
+        return questionsDeleted;
+    }
+
+    public void setQuestionsDeleted(long questionsDeleted) {
+        this.questionsDeleted = questionsDeleted;
+    }
+
+    public long getOptionsDeleted() {
+        return optionsDeleted;
+    }
+
+    public void setOptionsDeleted(long optionsDeleted) {
+        this.optionsDeleted = optionsDeleted;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
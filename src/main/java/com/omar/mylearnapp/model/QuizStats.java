@@ -0,0 +1,97 @@
+package com.omar.mylearnapp.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Running aggregate of the completed attempts of a quiz, kept up to date by upserts at submit time
+ * so statistics never have to scan quiz_attempts.
+ */
+@Entity
+@Table(name = "quiz_stats")
+public class QuizStats {
+    @Id
+    private Long quizId;
+
+    private long attemptCount;
+    private long scoreSum;
+    private long scoreSquareSum;
+    private long timeSum;
+    private Integer minScore;
+    private Integer maxScore;
+
+    public QuizStats() {
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(Long quizId) {
+        this.quizId = quizId;
+    }
+
+    public long getAttemptCount() {
+        return attemptCount;
+    }
+
+    public void setAttemptCount(long attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+
+    public long getScoreSum() {
+        return scoreSum;
+    }
+
+    public void setScoreSum(long scoreSum) {
+        this.scoreSum = scoreSum;
+    }
+
+    public long getScoreSquareSum() {
+        return scoreSquareSum;
+    }
+
+    public void setScoreSquareSum(long scoreSquareSum) {
+        this.scoreSquareSum = scoreSquareSum;
+    }
+
+    public long getTimeSum() {
+        return timeSum;
+    }
+
+    public void setTimeSum(long timeSum) {
+        this.timeSum = timeSum;
+    }
+
+    public Integer getMinScore() {
+        return minScore;
+    }
+
+    public void setMinScore(Integer minScore) {
+        this.minScore = minScore;
+    }
+
+    public Integer getMaxScore() {
+        return maxScore;
+    }
+
+    public void setMaxScore(Integer maxScore) {
+        this.maxScore = maxScore;
+    }
+
+    public double getAverageScore() {
+        return attemptCount == 0 ? 0 : (double) scoreSum / attemptCount;
+    }
+
+    public double getAverageTimeSeconds() {
+        return attemptCount == 0 ? 0 : (double) timeSum / attemptCount;
+    }
+
+    // Population standard deviation from the running sums: sqrt(E[x^2] - E[x]^2)
+    public double getScoreStandardDeviation() {
+        if (attemptCount == 0) {
+            return 0;
+        }
+        double mean = getAverageScore();
+        return Math.sqrt(Math.max(0, (double) scoreSquareSum / attemptCount - mean * mean));
+    }
+}
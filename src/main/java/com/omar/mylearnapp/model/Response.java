@@ -3,10 +3,11 @@ package com.omar.mylearnapp.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "responses")
+@Table(name = "responses", indexes = @Index(name = "idx_responses_option", columnList = "option_id"))
 public class Response {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "response_seq")
+    @SequenceGenerator(name = "response_seq", sequenceName = "response_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
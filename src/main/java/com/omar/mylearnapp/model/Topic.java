@@ -5,15 +5,19 @@ import jakarta.persistence.*;
 import java.util.List;
 
 @Entity
-@Table(name = "topics")
+@Table(name = "topics", uniqueConstraints = @UniqueConstraint(name = "uk_topics_name", columnNames = "name"))
 public class Topic {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "topic_seq")
+    @SequenceGenerator(name = "topic_seq", sequenceName = "topic_seq", allocationSize = 50)
     private Long id;
 
     private String name;
     private String description;
 
+    // Bumped by every write to the entity or its content, used as the ETag of its resources
+    private long version;
+
     @OneToMany(mappedBy = "topic", cascade = CascadeType.ALL)
     private List<Quiz> quizzes;
 
@@ -56,4 +60,12 @@ public class Topic {
     public void setQuizzes(List<Quiz> quizzes) {
         this.quizzes = quizzes;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
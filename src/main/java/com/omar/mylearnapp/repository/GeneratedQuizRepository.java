@@ -0,0 +1,18 @@
+package com.omar.mylearnapp.repository;
+
+import com.omar.mylearnapp.model.GeneratedQuiz;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface GeneratedQuizRepository extends JpaRepository<GeneratedQuiz, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GeneratedQuiz g WHERE g.createdAt < :cutoff")
+    int deleteByCreatedAtBefore(@Param("cutoff") LocalDateTime cutoff);
+}
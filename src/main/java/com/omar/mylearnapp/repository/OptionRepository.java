@@ -2,6 +2,7 @@ package com.omar.mylearnapp.repository;
 
 import com.omar.mylearnapp.model.Option;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
@@ -17,4 +18,18 @@ public interface OptionRepository extends JpaRepository<Option, Long> {
     @Query("SELECT COUNT(o) FROM Option o WHERE o.question.id = :questionId")
     int countByQuestionId(Long questionId);
 
+    // Rows of questionId, optionId, for the options a deletion is about to remove
+    @Query("SELECT o.question.id, o.id FROM Option o WHERE o.question.quiz.id = :quizId")
+    List<Object[]> findIdsByQuizId(Long quizId);
+
+    @Query("SELECT o.id FROM Option o WHERE o.question.id = :questionId")
+    List<Long> findIdsByQuestionId(Long questionId);
+
+    @Modifying
+    @Query("DELETE FROM Option o WHERE o.question.id IN (SELECT q.id FROM Question q WHERE q.quiz.id = :quizId)")
+    int deleteAllByQuizId(Long quizId);
+
+    @Modifying
+    @Query("DELETE FROM Option o WHERE o.question.id = :questionId")
+    int deleteAllByQuestionId(Long questionId);
 }
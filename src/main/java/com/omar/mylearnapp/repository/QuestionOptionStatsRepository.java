@@ -0,0 +1,36 @@
+package com.omar.mylearnapp.repository;
+
+import com.omar.mylearnapp.model.QuestionOptionStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface QuestionOptionStatsRepository extends JpaRepository<QuestionOptionStats, Long> {
+
+    List<QuestionOptionStats> findByQuestionId(Long questionId);
+
+    // Deltas can be negative when attempts are deleted
+    @Modifying
+    @Query(value = "INSERT INTO question_option_stats (option_id, question_id, response_count, correct_count) "
+            + "VALUES (:optionId, :questionId, :responses, :correct) "
+            + "ON DUPLICATE KEY UPDATE response_count = response_count + :responses, correct_count = correct_count + :correct",
+            nativeQuery = true)
+    int addCounts(Long optionId, Long questionId, long responses, long correct);
+
+    @Modifying
+    @Query(value = "INSERT INTO question_option_stats (option_id, question_id, response_count, correct_count) "
+            + "SELECT r.option_id, MIN(r.question_id), COUNT(*), SUM(CASE WHEN r.is_correct THEN 1 ELSE 0 END) "
+            + "FROM responses r WHERE r.option_id IS NOT NULL GROUP BY r.option_id",
+            nativeQuery = true)
+    int insertAllFromResponses();
+
+    @Modifying
+    @Query("DELETE FROM QuestionOptionStats s WHERE s.questionId IN (SELECT q.id FROM Question q WHERE q.quiz.id = :quizId)")
+    int deleteAllByQuizId(Long quizId);
+
+    @Modifying
+    @Query("DELETE FROM QuestionOptionStats s WHERE s.questionId = :questionId")
+    int deleteAllByQuestionId(Long questionId);
+}
@@ -2,17 +2,37 @@ package com.omar.mylearnapp.repository;
 
 import com.omar.mylearnapp.model.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<Question> findByQuizId(Long quizId);
     int countByQuizId(Long quizId);
 
+    @Query("SELECT q.quiz.id FROM Question q WHERE q.id = :id")
+    Optional<Long> findQuizIdById(Long id);
+
     @Query("SELECT q FROM Question q WHERE q.quiz.id = :quizId ORDER BY FUNCTION('RAND')")
     List<Question> findRandomQuestionsByQuizId(Long quizId);
 
     @Query("SELECT q FROM Question q WHERE q.text LIKE %:searchText%")
     List<Question> searchByText(String searchText);
+
+    // Join fetches the options of every question of the quiz in a single statement
+    @Query("SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.options WHERE q.quiz.id = :quizId ORDER BY q.id")
+    List<Question> findWithOptionsByQuizId(Long quizId);
+
+    @Query("SELECT q.id, o.id, o.isCorrect FROM Question q LEFT JOIN q.options o WHERE q.quiz.id = :quizId")
+    List<Object[]> findAnswerKeyRowsByQuizId(Long quizId);
+
+    @Modifying
+    @Query("DELETE FROM Question q WHERE q.quiz.id = :quizId")
+    int deleteAllByQuizId(Long quizId);
+
+    @Modifying
+    @Query("DELETE FROM Question q WHERE q.id = :id")
+    int deleteQuestionById(Long id);
 }
@@ -1,11 +1,17 @@
 package com.omar.mylearnapp.repository;
 
 import com.omar.mylearnapp.model.QuizAttempt;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long> {
     List<QuizAttempt> findByUserId(Long userId);
@@ -13,6 +19,16 @@ public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long>
     List<QuizAttempt> findByQuizId(Long quizId);
     List<QuizAttempt> findByUserIdAndQuizId(Long userId, Long quizId);
 
+    // Row locks for the paths that close an attempt, so only one of them sees it open
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT qa FROM QuizAttempt qa WHERE qa.id = :id")
+    Optional<QuizAttempt> findByIdForUpdate(Long id);
+
+    // Locked in id order so that concurrent writers cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT qa FROM QuizAttempt qa WHERE qa.id IN :ids ORDER BY qa.id")
+    List<QuizAttempt> findAllByIdForUpdate(Collection<Long> ids);
+
     @Query("SELECT qa FROM QuizAttempt qa WHERE qa.user.id = :userId ORDER BY qa.startTime DESC")
     List<QuizAttempt> findRecentAttemptsByUserId(Long userId);
 
@@ -26,4 +42,47 @@ public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long>
     Double getAverageTimeByQuizId(Long quizId);
     List<QuizAttempt> findByStartTimeBetween(LocalDateTime start, LocalDateTime end);
 
+    @Query("SELECT qa.id, qa.startTime, q.timeLimit FROM QuizAttempt qa JOIN qa.quiz q WHERE qa.endTime IS NULL AND q.timeLimit > 0")
+    List<Object[]> findOpenTimedAttempts();
+
+    // Activity seed rows: year, month, day, hour[, minute], count
+    @Query("SELECT year(qa.startTime), month(qa.startTime), day(qa.startTime), hour(qa.startTime), COUNT(qa) "
+            + "FROM QuizAttempt qa WHERE qa.startTime >= :since "
+            + "GROUP BY year(qa.startTime), month(qa.startTime), day(qa.startTime), hour(qa.startTime)")
+    List<Object[]> countStartedByHourSince(LocalDateTime since);
+
+    @Query("SELECT year(qa.startTime), month(qa.startTime), day(qa.startTime), hour(qa.startTime), minute(qa.startTime), COUNT(qa) "
+            + "FROM QuizAttempt qa WHERE qa.startTime >= :since "
+            + "GROUP BY year(qa.startTime), month(qa.startTime), day(qa.startTime), hour(qa.startTime), minute(qa.startTime)")
+    List<Object[]> countStartedByMinuteSince(LocalDateTime since);
+
+    // Same shape with two counts: submitted, and closed at the deadline by the expiry (score 0, past the time limit)
+    @Query("SELECT year(qa.endTime), month(qa.endTime), day(qa.endTime), hour(qa.endTime), "
+            + "SUM(CASE WHEN qa.score = 0 AND q.timeLimit > 0 AND qa.timeTakenSeconds > q.timeLimit THEN 0 ELSE 1 END), "
+            + "SUM(CASE WHEN qa.score = 0 AND q.timeLimit > 0 AND qa.timeTakenSeconds > q.timeLimit THEN 1 ELSE 0 END) "
+            + "FROM QuizAttempt qa LEFT JOIN qa.quiz q WHERE qa.endTime >= :since "
+            + "GROUP BY year(qa.endTime), month(qa.endTime), day(qa.endTime), hour(qa.endTime)")
+    List<Object[]> countCompletedByHourSince(LocalDateTime since);
+
+    @Query("SELECT year(qa.endTime), month(qa.endTime), day(qa.endTime), hour(qa.endTime), minute(qa.endTime), "
+            + "SUM(CASE WHEN qa.score = 0 AND q.timeLimit > 0 AND qa.timeTakenSeconds > q.timeLimit THEN 0 ELSE 1 END), "
+            + "SUM(CASE WHEN qa.score = 0 AND q.timeLimit > 0 AND qa.timeTakenSeconds > q.timeLimit THEN 1 ELSE 0 END) "
+            + "FROM QuizAttempt qa LEFT JOIN qa.quiz q WHERE qa.endTime >= :since "
+            + "GROUP BY year(qa.endTime), month(qa.endTime), day(qa.endTime), hour(qa.endTime), minute(qa.endTime)")
+    List<Object[]> countCompletedByMinuteSince(LocalDateTime since);
+
+    @Query("SELECT qa.id FROM QuizAttempt qa WHERE qa.quiz.id = :quizId")
+    List<Long> findIdsByQuizId(Long quizId, Limit limit);
+
+    @Query("SELECT qa.id FROM QuizAttempt qa WHERE qa.quiz.id = :quizId AND qa.endTime IS NULL")
+    List<Long> findOpenIdsByQuizId(Long quizId);
+
+    // Closes the attempts still open on a deleted quiz, scored 0 like an expiry
+    @Modifying
+    @Query("UPDATE QuizAttempt qa SET qa.endTime = :endTime, qa.score = 0 WHERE qa.quiz.id = :quizId AND qa.endTime IS NULL")
+    int closeOpenAttempts(Long quizId, LocalDateTime endTime);
+
+    @Modifying
+    @Query("DELETE FROM QuizAttempt qa WHERE qa.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
 }
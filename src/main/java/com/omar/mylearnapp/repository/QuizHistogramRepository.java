@@ -0,0 +1,45 @@
+package com.omar.mylearnapp.repository;
+
+import com.omar.mylearnapp.model.QuizHistogramBucket;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface QuizHistogramRepository extends JpaRepository<QuizHistogramBucket, QuizHistogramBucket.Key> {
+
+    List<QuizHistogramBucket> findByQuizIdAndTypeOrderByBucket(Long quizId, String type);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO quiz_histogram (quiz_id, type, bucket, attempt_count) VALUES (:quizId, :type, :bucket, :delta) "
+            + "ON DUPLICATE KEY UPDATE attempt_count = attempt_count + :delta",
+            nativeQuery = true)
+    int addToBucket(Long quizId, String type, int bucket, long delta);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM quiz_histogram WHERE quiz_id = :quizId", nativeQuery = true)
+    int deleteByQuizId(Long quizId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO quiz_histogram (quiz_id, type, bucket, attempt_count) "
+            + "SELECT qa.quiz_id, 'SCORE', qa.score, COUNT(*) FROM quiz_attempts qa "
+            + "WHERE qa.end_time IS NOT NULL AND qa.quiz_id IS NOT NULL AND (:quizId IS NULL OR qa.quiz_id = :quizId) "
+            + "GROUP BY qa.quiz_id, qa.score",
+            nativeQuery = true)
+    int insertScoreBucketsFromAttempts(Long quizId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO quiz_histogram (quiz_id, type, bucket, attempt_count) "
+            + "SELECT t.quiz_id, 'TIME', t.bucket, COUNT(*) FROM ("
+            + "SELECT qa.quiz_id, LEAST(FLOOR(COALESCE(qa.time_taken_seconds, 0) / :width), :maxBucket) AS bucket "
+            + "FROM quiz_attempts qa WHERE qa.end_time IS NOT NULL AND qa.quiz_id IS NOT NULL "
+            + "AND (:quizId IS NULL OR qa.quiz_id = :quizId)) t GROUP BY t.quiz_id, t.bucket",
+            nativeQuery = true)
+    int insertTimeBucketsFromAttempts(Long quizId, int width, int maxBucket);
+}
@@ -0,0 +1,12 @@
+package com.omar.mylearnapp.repository;
+
+import com.omar.mylearnapp.model.QuizPurgeJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface QuizPurgeJobRepository extends JpaRepository<QuizPurgeJob, Long> {
+    List<QuizPurgeJob> findByStatusIn(Collection<QuizPurgeJob.Status> statuses);
+    long countByStatus(QuizPurgeJob.Status status);
+}
@@ -1,20 +1,106 @@
 package com.omar.mylearnapp.repository;
 
+import com.omar.mylearnapp.dto.QuizSummary;
 import com.omar.mylearnapp.model.Quiz;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Tombstoned quizzes (deletedAt set) are filtered here, finder by finder, rather than on the entity:
+ * attempts and questions of a quiz awaiting its purge must still resolve their quiz.
+ */
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
+    @Override
+    @EntityGraph(Quiz.GRAPH_LISTING)
+    @Query("SELECT q FROM Quiz q WHERE q.deletedAt IS NULL")
+    List<Quiz> findAll();
+
+    @Override
+    @Query("SELECT q FROM Quiz q WHERE q.id = :id AND q.deletedAt IS NULL")
+    Optional<Quiz> findById(Long id);
+
+    @EntityGraph(Quiz.GRAPH_LISTING)
+    @Query("SELECT q FROM Quiz q WHERE q.topic.id = :topicId AND q.deletedAt IS NULL")
     List<Quiz> findByTopicId(Long topicId);
+    @EntityGraph(Quiz.GRAPH_LISTING)
+    @Query("SELECT q FROM Quiz q WHERE q.difficulty = :difficulty AND q.deletedAt IS NULL")
     List<Quiz> findByDifficulty(String difficulty);
+    @EntityGraph(Quiz.GRAPH_LISTING)
+    @Query("SELECT q FROM Quiz q WHERE q.category = :category AND q.deletedAt IS NULL")
     List<Quiz> findByCategory(String category);
+    @EntityGraph(Quiz.GRAPH_LISTING)
+    @Query("SELECT q FROM Quiz q WHERE q.topic.name = :topicName AND q.deletedAt IS NULL")
     List<Quiz> findByTopicName(String topicName);
+    @EntityGraph(Quiz.GRAPH_LISTING)
+    @Query("SELECT q FROM Quiz q WHERE q.professor.id = :professorId AND q.deletedAt IS NULL")
     List<Quiz> findByProfessorId(Long professorId);
+    @EntityGraph(Quiz.GRAPH_LISTING)
+    @Query("SELECT q FROM Quiz q WHERE q.topic.name = :name AND q.deletedAt IS NULL")
     List<Quiz> findByTopic_Name(String name);
 
+    // Quiz with topic, professor and questions in one statement, see QuestionRepository.findWithOptionsByQuizId
+    @EntityGraph(Quiz.GRAPH_DETAIL)
+    @Query("SELECT q FROM Quiz q WHERE q.id = :id AND q.deletedAt IS NULL")
+    Optional<Quiz> findDetailById(Long id);
 
-    @Query("SELECT COUNT(q) FROM Quiz q")
+
+    @Query("SELECT COUNT(q) FROM Quiz q WHERE q.deletedAt IS NULL")
     long countQuizzes();
+
+    @Query("SELECT q.version FROM Quiz q WHERE q.id = :id AND q.deletedAt IS NULL")
+    Optional<Long> findVersionById(Long id);
+
+    // [version, professor id], lets a revalidation check the owner before answering from the version
+    @Query("SELECT q.version, p.id FROM Quiz q LEFT JOIN q.professor p WHERE q.id = :id AND q.deletedAt IS NULL")
+    List<Object[]> findVersionAndProfessorIdById(Long id);
+
+    // [count, max id, sum of versions]: changes whenever a quiz is created, updated or deleted.
+    // Professor names in the listings are not covered, the application never renames a user
+    @Query("SELECT COUNT(q), COALESCE(MAX(q.id), 0), COALESCE(SUM(q.version), 0) FROM Quiz q WHERE q.deletedAt IS NULL")
+    List<Object[]> findCatalogFingerprint();
+
+    // For writes that do not load the quiz, never mix with a managed copy of the same quiz
+    @Transactional
+    @Modifying
+    @Query("UPDATE Quiz q SET q.version = q.version + 1 WHERE q.id = :id")
+    int incrementVersion(Long id);
+
+    String SUMMARY_SELECT = "SELECT q.id AS id, q.title AS title, q.difficulty AS difficulty, q.category AS category, "
+            + "q.icon AS icon, q.color AS color, q.timeLimit AS timeLimit, t.id AS topicId, t.name AS topicName, "
+            + "CASE WHEN p.id IS NULL THEN NULL ELSE TRIM(CONCAT(COALESCE(p.firstName, ''), ' ', COALESCE(p.lastName, ''))) END AS professorName, "
+            + "SIZE(q.questions) AS questionCount "
+            + "FROM Quiz q LEFT JOIN q.topic t LEFT JOIN q.professor p WHERE q.deletedAt IS NULL ";
+
+    // Keyset pagination: seek on the primary key instead of OFFSET scans
+    @Query(SUMMARY_SELECT + "AND q.id > :afterId ORDER BY q.id")
+    List<QuizSummary> findSummariesAfter(Long afterId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "AND t.id = :topicId AND q.id > :afterId ORDER BY q.id")
+    List<QuizSummary> findSummariesByTopicIdAfter(Long topicId, Long afterId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "AND q.difficulty = :difficulty AND q.id > :afterId ORDER BY q.id")
+    List<QuizSummary> findSummariesByDifficultyAfter(String difficulty, Long afterId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "AND t.name = :topicName AND q.id > :afterId ORDER BY q.id")
+    List<QuizSummary> findSummariesByTopicNameAfter(String topicName, Long afterId, Limit limit);
+
+    @Query(SUMMARY_SELECT + "AND p.id = :professorId ORDER BY q.id")
+    List<QuizSummary> findSummariesByProfessorId(Long professorId);
+
+    // Hides the quiz from every finder, the version bump invalidates its cached ETags
+    @Modifying
+    @Query("UPDATE Quiz q SET q.deletedAt = :deletedAt, q.version = q.version + 1 WHERE q.id = :id AND q.deletedAt IS NULL")
+    int tombstone(Long id, LocalDateTime deletedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM quizzes WHERE id = :id", nativeQuery = true)
+    int deleteQuizById(Long id);
 }
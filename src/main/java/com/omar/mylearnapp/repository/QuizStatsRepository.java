@@ -0,0 +1,51 @@
+package com.omar.mylearnapp.repository;
+
+import com.omar.mylearnapp.model.QuizStats;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface QuizStatsRepository extends JpaRepository<QuizStats, Long> {
+
+    // Single-statement upsert, concurrent submits of the same quiz serialize on the row lock
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO quiz_stats (quiz_id, attempt_count, score_sum, score_square_sum, time_sum, min_score, max_score) "
+            + "VALUES (:quizId, 1, :score, :score * :score, :timeTaken, :score, :score) "
+            + "ON DUPLICATE KEY UPDATE attempt_count = attempt_count + 1, score_sum = score_sum + :score, "
+            + "score_square_sum = score_square_sum + :score * :score, time_sum = time_sum + :timeTaken, "
+            + "min_score = LEAST(COALESCE(min_score, :score), :score), max_score = GREATEST(COALESCE(max_score, :score), :score)",
+            nativeQuery = true)
+    int recordAttempt(Long quizId, int score, long timeTaken);
+
+    // Min and max cannot be undone incrementally, they stay as bounds until the next rebuild
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE quiz_stats SET attempt_count = attempt_count - 1, score_sum = score_sum - :score, "
+            + "score_square_sum = score_square_sum - :score * :score, time_sum = time_sum - :timeTaken "
+            + "WHERE quiz_id = :quizId AND attempt_count > 0",
+            nativeQuery = true)
+    int removeAttempt(Long quizId, int score, long timeTaken);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM quiz_stats WHERE quiz_id = :quizId", nativeQuery = true)
+    int deleteByQuizId(Long quizId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO quiz_stats (quiz_id, attempt_count, score_sum, score_square_sum, time_sum, min_score, max_score) "
+            + "SELECT qa.quiz_id, COUNT(*), SUM(qa.score), SUM(qa.score * qa.score), SUM(COALESCE(qa.time_taken_seconds, 0)), MIN(qa.score), MAX(qa.score) "
+            + "FROM quiz_attempts qa WHERE qa.end_time IS NOT NULL AND qa.quiz_id IS NOT NULL GROUP BY qa.quiz_id",
+            nativeQuery = true)
+    int insertAllFromAttempts();
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO quiz_stats (quiz_id, attempt_count, score_sum, score_square_sum, time_sum, min_score, max_score) "
+            + "SELECT qa.quiz_id, COUNT(*), SUM(qa.score), SUM(qa.score * qa.score), SUM(COALESCE(qa.time_taken_seconds, 0)), MIN(qa.score), MAX(qa.score) "
+            + "FROM quiz_attempts qa WHERE qa.end_time IS NOT NULL AND qa.quiz_id = :quizId GROUP BY qa.quiz_id",
+            nativeQuery = true)
+    int insertFromAttempts(Long quizId);
+}
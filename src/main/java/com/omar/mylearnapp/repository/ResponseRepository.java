@@ -1,9 +1,13 @@
 package com.omar.mylearnapp.repository;
 
+import com.omar.mylearnapp.dto.MissedQuestionReport;
 import com.omar.mylearnapp.model.Response;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +27,32 @@ public interface ResponseRepository extends JpaRepository<Response, Long> {
     @Query("SELECT r.selectedOption.id as optionId, COUNT(r) as count FROM Response r WHERE r.question.id = :questionId GROUP BY r.selectedOption.id")
     List<Map<String, Object>> countResponsesByOptionForQuestion(Long questionId);
 
-    @Query("SELECT r.question.id as questionId, COUNT(r) as count FROM Response r WHERE r.quizAttempt.quiz.id = :quizId AND r.isCorrect = false GROUP BY r.question.id ORDER BY COUNT(r) DESC")
-    List<Map<String, Object>> findMostMissedQuestionsByQuizId(Long quizId);
+    // Questions of a quiz by wrong answers, with their text and answer count, in one grouped join
+    @Query("SELECT new com.omar.mylearnapp.dto.MissedQuestionReport(q.id, q.text, "
+            + "SUM(CASE WHEN r.isCorrect = false THEN 1 ELSE 0 END), COUNT(r)) "
+            + "FROM Response r JOIN r.question q WHERE q.quiz.id = :quizId "
+            + "GROUP BY q.id, q.text HAVING SUM(CASE WHEN r.isCorrect = false THEN 1 ELSE 0 END) > 0 "
+            + "ORDER BY SUM(CASE WHEN r.isCorrect = false THEN 1 ELSE 0 END) DESC, q.id")
+    List<MissedQuestionReport> findMissedQuestionReport(Long quizId, Limit limit);
+
+    @Query("SELECT new com.omar.mylearnapp.dto.MissedQuestionReport$OptionMisses(r.question.id, o.id, o.text, COUNT(r)) "
+            + "FROM Response r JOIN r.selectedOption o WHERE r.question.id IN :questionIds AND r.isCorrect = false "
+            + "GROUP BY r.question.id, o.id, o.text ORDER BY COUNT(r) DESC, o.id")
+    List<MissedQuestionReport.OptionMisses> findMissedOptionCounts(Collection<Long> questionIds);
+
+    // Bulk deletion: ids are selected in bounded chunks, then removed with one set-based DELETE per chunk
+    @Query("SELECT r.id FROM Response r LEFT JOIN r.quizAttempt a LEFT JOIN r.question q WHERE a.quiz.id = :quizId OR q.quiz.id = :quizId")
+    List<Long> findIdsByQuizId(Long quizId, Limit limit);
+
+    @Query("SELECT r.id FROM Response r WHERE r.question.id = :questionId")
+    List<Long> findIdsByQuestionId(Long questionId, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM Response r WHERE r.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    // Responses that selected options removed from their question, found through idx_responses_option
+    @Modifying
+    @Query("DELETE FROM Response r WHERE r.selectedOption.id IN :optionIds")
+    int deleteBySelectedOptionIdIn(Collection<Long> optionIds);
 }
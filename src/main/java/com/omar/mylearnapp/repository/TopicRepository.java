@@ -2,11 +2,24 @@ package com.omar.mylearnapp.repository;
 
 import com.omar.mylearnapp.model.Topic;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface TopicRepository extends JpaRepository<Topic,Long> {
     Optional<Topic> findByName(String name);
     List<Topic> findByNameContainingIgnoreCase(String name);
+
+    @Query("SELECT t.version FROM Topic t WHERE t.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    // [count, max id, sum of versions]: changes whenever a topic is created, updated or deleted
+    @Query("SELECT COUNT(t), COALESCE(MAX(t.id), 0), COALESCE(SUM(t.version), 0) FROM Topic t")
+    List<Object[]> findFingerprint();
+
+    // Duplicate check of a whole batch in one statement, served by uk_topics_name
+    @Query("SELECT t.name FROM Topic t WHERE t.name IN :names")
+    List<String> findNamesIn(Collection<String> names);
 }
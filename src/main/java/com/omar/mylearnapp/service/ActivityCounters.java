@@ -0,0 +1,190 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.repository.QuizAttemptRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rolling attempt activity (started, submitted, expired) in two ring buffers: per minute for the
+ * last 24 hours and per hour for the last 30 days. Seeded from quiz_attempts at startup and bumped
+ * in memory afterwards, so any window up to 30 days is answered without touching the database.
+ */
+@Component
+public class ActivityCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityCounters.class);
+
+    public enum Event { STARTED, SUBMITTED, EXPIRED }
+
+    static final long MINUTE_MILLIS = 60_000L;
+    static final long HOUR_MILLIS = 3_600_000L;
+    static final int MINUTE_SLOTS = 24 * 60;
+    static final int HOUR_SLOTS = 30 * 24;
+
+    // Windows reported by /api/statistics/system
+    private static final Map<String, Duration> WINDOWS = new LinkedHashMap<>();
+
+    static {
+        WINDOWS.put("1h", Duration.ofHours(1));
+        WINDOWS.put("24h", Duration.ofHours(24));
+        WINDOWS.put("7d", Duration.ofDays(7));
+        WINDOWS.put("30d", Duration.ofDays(30));
+    }
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Ring minutes = new Ring(MINUTE_SLOTS, MINUTE_MILLIS);
+    private final Ring hours = new Ring(HOUR_SLOTS, HOUR_MILLIS);
+
+    /**
+     * Loads the last 30 days of activity. Runs before the journal replay and the expiry scheduler,
+     * whose writes are counted in memory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(-10)
+    public void seed() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime minuteStart = now.minusHours(24);
+        LocalDateTime hourStart = now.minusDays(30);
+
+        for (Object[] row : quizAttemptRepository.countStartedByMinuteSince(minuteStart)) {
+            minutes.add(toMillis(row, true), Event.STARTED, count(row[5]));
+        }
+        for (Object[] row : quizAttemptRepository.countCompletedByMinuteSince(minuteStart)) {
+            long at = toMillis(row, true);
+            minutes.add(at, Event.SUBMITTED, count(row[5]));
+            minutes.add(at, Event.EXPIRED, count(row[6]));
+        }
+        for (Object[] row : quizAttemptRepository.countStartedByHourSince(hourStart)) {
+            hours.add(toMillis(row, false), Event.STARTED, count(row[4]));
+        }
+        for (Object[] row : quizAttemptRepository.countCompletedByHourSince(hourStart)) {
+            long at = toMillis(row, false);
+            hours.add(at, Event.SUBMITTED, count(row[4]));
+            hours.add(at, Event.EXPIRED, count(row[5]));
+        }
+        log.info("Seeded activity counters, {} attempts started in the last 30 days",
+                count(Event.STARTED, Duration.ofDays(30)));
+    }
+
+    /**
+     * Counts an event now or, inside a transaction, once it commits: a rolled back or retried
+     * write must not be counted.
+     */
+    public void record(Event event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(event);
+            }
+        });
+    }
+
+    /**
+     * Number of events in the window ending now, including the current bucket. Windows up to
+     * 24 hours have minute precision, longer ones hour precision; anything beyond 30 days is capped.
+     */
+    public long count(Event event, Duration window) {
+        long now = clock.millis();
+        if (window.compareTo(Duration.ofHours(24)) <= 0) {
+            return minutes.sum(now, event, (int) Math.max(1, window.toMinutes()));
+        }
+        return hours.sum(now, event, (int) Math.min(HOUR_SLOTS, window.toHours()));
+    }
+
+    /**
+     * @return counts of every event for each reported window, keyed by window then event name
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> activity = new LinkedHashMap<>();
+        for (Map.Entry<String, Duration> window : WINDOWS.entrySet()) {
+            Map<String, Object> counts = new LinkedHashMap<>();
+            for (Event event : Event.values()) {
+                counts.put(event.name().toLowerCase(), count(event, window.getValue()));
+            }
+            activity.put(window.getKey(), counts);
+        }
+        return activity;
+    }
+
+    private void add(Event event) {
+        long now = clock.millis();
+        minutes.add(now, event, 1);
+        hours.add(now, event, 1);
+    }
+
+    private long toMillis(Object[] row, boolean withMinute) {
+        LocalDateTime time = LocalDateTime.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(),
+                ((Number) row[2]).intValue(), ((Number) row[3]).intValue(), withMinute ? ((Number) row[4]).intValue() : 0);
+        return time.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    private static long count(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    /**
+     * Fixed ring of time buckets. A slot remembers which bucket it holds and is reset when the ring
+     * wraps around to it, so stale counts are never read.
+     */
+    static final class Ring {
+        private final long bucketMillis;
+        private final long[] buckets;
+        private final long[][] counts;
+
+        Ring(int slots, long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = new long[slots];
+            this.counts = new long[slots][Event.values().length];
+            Arrays.fill(buckets, -1);
+        }
+
+        synchronized void add(long epochMillis, Event event, long amount) {
+            long bucket = epochMillis / bucketMillis;
+            int slot = (int) (bucket % buckets.length);
+            if (buckets[slot] != bucket) {
+                // Older than what the slot holds, outside the ring
+                if (buckets[slot] > bucket) {
+                    return;
+                }
+                buckets[slot] = bucket;
+                Arrays.fill(counts[slot], 0);
+            }
+            counts[slot][event.ordinal()] += amount;
+        }
+
+        synchronized long sum(long nowMillis, Event event, int bucketCount) {
+            long last = nowMillis / bucketMillis;
+            long first = last - Math.min(bucketCount, buckets.length) + 1;
+            long total = 0;
+            for (long bucket = first; bucket <= last; bucket++) {
+                int slot = (int) (bucket % buckets.length);
+                if (buckets[slot] == bucket) {
+                    total += counts[slot][event.ordinal()];
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.dto.QuizDTO;
+import com.omar.mylearnapp.model.Question;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A quiz generation request running in the background. Kept in memory only, until its TTL expires
+ * after it finished. While it runs, the questions already generated are listed as they arrive.
+ */
+public class AiQuizJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private final String id;
+    private final String professorId;
+    private final LocalDateTime createdAt;
+    private final List<Question> questions = new CopyOnWriteArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile QuizDTO result;
+    private volatile String error;
+
+    AiQuizJob(String id, String professorId, LocalDateTime createdAt) {
+        this.id = id;
+        this.professorId = professorId;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getProfessorId() {
+        return professorId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public List<Question> getQuestions() {
+        return questions;
+    }
+
+    public QuizDTO getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    void started(LocalDateTime now) {
+        startedAt = now;
+        status = Status.RUNNING;
+    }
+
+    void questionGenerated(Question question) {
+        questions.add(question);
+    }
+
+    void succeeded(QuizDTO quiz, LocalDateTime now) {
+        result = quiz;
+        finishedAt = now;
+        status = Status.DONE;
+    }
+
+    void failed(String message, LocalDateTime now) {
+        error = message;
+        finishedAt = now;
+        status = Status.FAILED;
+    }
+}
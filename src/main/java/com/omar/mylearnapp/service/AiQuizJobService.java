@@ -0,0 +1,353 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.dto.QuizDTO;
+import com.omar.mylearnapp.model.Question;
+import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.model.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs AI quiz generation off the request threads. Requests go through a fixed pool of workers and
+ * a bounded queue; when the queue is full the request is rejected instead of piling up. Clients poll
+ * the job or subscribe to it over Server-Sent Events, where each question is pushed as soon as the
+ * model has written it. Events are sent by their own threads, so a slow client never holds up a
+ * generation; a client that falls too far behind is dropped. Finished jobs are dropped once their
+ * TTL has passed.
+ */
+@Service
+public class AiQuizJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(AiQuizJobService.class);
+
+    @Autowired
+    private GeminiService geminiService;
+
+    @Value("${gemini.jobs.workers:4}")
+    private int workers;
+
+    @Value("${gemini.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${gemini.jobs.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    // Generate through streamGenerateContent so questions reach subscribers one by one
+    @Value("${gemini.jobs.streaming:true}")
+    private boolean streaming;
+
+    @Value("${gemini.jobs.stream-timeout-ms:180000}")
+    private long streamTimeoutMillis;
+
+    @Value("${gemini.jobs.event-senders:2}")
+    private int eventSenderCount;
+
+    // Events a subscriber may have waiting before it is dropped
+    @Value("${gemini.jobs.subscriber-buffer:64}")
+    private int subscriberBuffer;
+
+    private final Map<String, AiQuizJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> streams = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong droppedSubscribers = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+    private ThreadPoolExecutor eventSenders;
+
+    /**
+     * Queues the generation of a quiz for a professor.
+     *
+     * @param force bypass the cache of generated quizzes
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public AiQuizJob submit(String sourceType, String content, int numQuestions, String difficulty,
+                            String category, boolean force, User professor) {
+        AiQuizJob job = new AiQuizJob(UUID.randomUUID().toString(), professor.getClerkId(), LocalDateTime.now());
+        jobs.put(job.getId(), job);
+        try {
+            executor().execute(() -> run(job, () -> {
+                Quiz quiz = streaming
+                        ? geminiService.generateQuizStreaming(sourceType, content, numQuestions, difficulty, category,
+                                force, question -> questionGenerated(job, question))
+                        : geminiService.generateQuiz(sourceType, content, numQuestions, difficulty, category, force);
+                quiz.setProfessor(professor);
+                return QuizDTO.fromQuiz(quiz);
+            }));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            rejected.incrementAndGet();
+            throw e;
+        }
+        submitted.incrementAndGet();
+        return job;
+    }
+
+    public Optional<AiQuizJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Streams a "status" event with the job as it stands, a "question" event for each question
+     * generated afterwards, then "done" or "failed" with the job once it finishes.
+     */
+    public SseEmitter subscribe(String jobId) {
+        AiQuizJob job = getJob(jobId)
+                .orElseThrow(() -> new RuntimeException("Generation job not found with id: " + jobId));
+
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(emitter);
+        // Under the job lock no question or result can slip between the status event and the registration
+        synchronized (job) {
+            if (!subscriber.publish("status", job, false)) {
+                return emitter;
+            }
+            if (job.isFinished()) {
+                publishResult(subscriber, job);
+                return emitter;
+            }
+            Set<Subscriber> listeners = streams.computeIfAbsent(jobId, id -> ConcurrentHashMap.newKeySet());
+            listeners.add(subscriber);
+            emitter.onCompletion(() -> listeners.remove(subscriber));
+            emitter.onTimeout(() -> listeners.remove(subscriber));
+            emitter.onError(error -> listeners.remove(subscriber));
+        }
+        return emitter;
+    }
+
+    /**
+     * Drops the jobs that finished more than the TTL ago, with their leftover streams.
+     */
+    @Scheduled(fixedDelayString = "${gemini.jobs.eviction-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        int before = jobs.size();
+        jobs.values().removeIf(job -> job.isFinished() && !job.getFinishedAt().isAfter(cutoff));
+        streams.keySet().removeIf(jobId -> !jobs.containsKey(jobId));
+        int removed = before - jobs.size();
+        if (removed > 0) {
+            evicted.addAndGet(removed);
+            log.debug("Evicted {} expired generation jobs", removed);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        ThreadPoolExecutor pool = executor;
+        if (pool != null) {
+            stats.put("active", pool.getActiveCount());
+            stats.put("queued", pool.getQueue().size());
+        }
+        stats.put("workers", workers);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("jobs", jobs.size());
+        stats.put("submitted", submitted.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("evicted", evicted.get());
+        stats.put("droppedSubscribers", droppedSubscribers.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (eventSenders != null) {
+            eventSenders.shutdownNow();
+        }
+        streams.values().forEach(listeners -> listeners.forEach(Subscriber::close));
+    }
+
+    private void run(AiQuizJob job, Supplier<QuizDTO> generation) {
+        job.started(LocalDateTime.now());
+        QuizDTO quiz = null;
+        String error = null;
+        try {
+            quiz = generation.get();
+            completed.incrementAndGet();
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            failed.incrementAndGet();
+            log.warn("Generation job {} failed: {}", job.getId(), error);
+        }
+
+        synchronized (job) {
+            if (error == null) {
+                job.succeeded(quiz, LocalDateTime.now());
+            } else {
+                job.failed(error, LocalDateTime.now());
+            }
+            Set<Subscriber> listeners = streams.remove(job.getId());
+            if (listeners != null) {
+                listeners.forEach(subscriber -> publishResult(subscriber, job));
+            }
+        }
+    }
+
+    private void questionGenerated(AiQuizJob job, Question question) {
+        synchronized (job) {
+            job.questionGenerated(question);
+            Set<Subscriber> listeners = streams.get(job.getId());
+            if (listeners == null) {
+                return;
+            }
+            Map<String, Object> event = Map.of("index", job.getQuestions().size() - 1, "question", question);
+            listeners.removeIf(subscriber -> !subscriber.publish("question", event, false));
+        }
+    }
+
+    private static void publishResult(Subscriber subscriber, AiQuizJob job) {
+        subscriber.publish(job.getStatus() == AiQuizJob.Status.DONE ? "done" : "failed", job, true);
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(streamTimeoutMillis);
+    }
+
+    private static boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            return false;
+        }
+    }
+
+    private synchronized ThreadPoolExecutor eventSenders() {
+        if (eventSenders == null) {
+            AtomicInteger threads = new AtomicInteger();
+            // At most one drain task per subscriber is queued, the queue is bounded by the subscriptions
+            eventSenders = new ThreadPoolExecutor(eventSenderCount, eventSenderCount, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "ai-quiz-events-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return eventSenders;
+    }
+
+    private synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "ai-quiz-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+        }
+        return executor;
+    }
+
+    private record Event(String name, Object data, boolean last) {
+    }
+
+    /**
+     * An SSE client of a job. Its events are queued and sent in order by the event senders,
+     * one drain task at a time.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Event> pending = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * @return false when the subscriber is closed, or was just dropped for falling behind
+         */
+        private boolean publish(String name, Object data, boolean last) {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                if (pending.size() >= subscriberBuffer) {
+                    droppedSubscribers.incrementAndGet();
+                    log.debug("Dropping a generation stream subscriber {} events behind", pending.size());
+                } else {
+                    pending.add(new Event(name, data, last));
+                    if (draining) {
+                        return true;
+                    }
+                    try {
+                        eventSenders().execute(this::drain);
+                        draining = true;
+                        return true;
+                    } catch (RejectedExecutionException e) {
+                        // Shutting down
+                    }
+                }
+            }
+            close();
+            return false;
+        }
+
+        private void drain() {
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    event = pending.poll();
+                    if (event == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (!send(emitter, event.name(), event.data())) {
+                    close();
+                    return;
+                }
+                if (event.last()) {
+                    close();
+                }
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            emitter.complete();
+        }
+    }
+}
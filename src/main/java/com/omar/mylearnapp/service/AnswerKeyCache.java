@@ -0,0 +1,116 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a compiled answer key per quiz so that grading a submission does not
+ * need to load every question and option from the database.
+ * Keys are built on first use and must be evicted whenever the quiz content changes.
+ * Inside a transaction the eviction is repeated once it completes, so that a key compiled
+ * from the old content while the change was uncommitted does not outlive it.
+ */
+@Component
+public class AnswerKeyCache {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private final Map<Long, AnswerKey> answerKeys = new ConcurrentHashMap<>();
+
+    public AnswerKey getAnswerKey(Long quizId) {
+        return answerKeys.computeIfAbsent(quizId, this::compile);
+    }
+
+    public void evict(Long quizId) {
+        if (quizId == null) {
+            return;
+        }
+        answerKeys.remove(quizId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    answerKeys.remove(quizId);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        answerKeys.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    answerKeys.clear();
+                }
+            });
+        }
+    }
+
+    private AnswerKey compile(Long quizId) {
+        Set<Long> questionIds = new HashSet<>();
+        // A question may have several correct options, each of them scores
+        Set<Long> correctOptionIds = new HashSet<>();
+        Map<Long, Long> questionByOption = new HashMap<>();
+
+        // Each row is [questionId, optionId, isCorrect]; option columns are null for questions without options
+        List<Object[]> rows = questionRepository.findAnswerKeyRowsByQuizId(quizId);
+        for (Object[] row : rows) {
+            Long questionId = (Long) row[0];
+            Long optionId = (Long) row[1];
+            questionIds.add(questionId);
+
+            if (optionId != null) {
+                questionByOption.put(optionId, questionId);
+                if (Boolean.TRUE.equals(row[2])) {
+                    correctOptionIds.add(optionId);
+                }
+            }
+        }
+
+        return new AnswerKey(questionIds, correctOptionIds, questionByOption);
+    }
+
+    /**
+     * Immutable answer key of a single quiz.
+     */
+    public static class AnswerKey {
+        private final Set<Long> questionIds;
+        private final Set<Long> correctOptionIds;
+        private final Map<Long, Long> questionByOption;
+
+        AnswerKey(Set<Long> questionIds, Set<Long> correctOptionIds, Map<Long, Long> questionByOption) {
+            this.questionIds = Set.copyOf(questionIds);
+            this.correctOptionIds = Set.copyOf(correctOptionIds);
+            this.questionByOption = Map.copyOf(questionByOption);
+        }
+
+        public boolean hasQuestion(Long questionId) {
+            return questionId != null && questionIds.contains(questionId);
+        }
+
+        public boolean ownsOption(Long questionId, Long optionId) {
+            return optionId != null && questionId != null && questionId.equals(questionByOption.get(optionId));
+        }
+
+        public boolean isCorrect(Long questionId, Long optionId) {
+            return ownsOption(questionId, optionId) && correctOptionIds.contains(optionId);
+        }
+
+        public int getQuestionCount() {
+            return questionIds.size();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.repository.QuizAttemptRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closes timed quiz attempts on the server when their deadline passes, so expiry no longer
+ * depends on the browser polling check-time and calling auto-submit.
+ * Open attempts are kept in a hashed timing wheel driven by a single ticker thread.
+ */
+@Component
+public class AttemptExpiryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(AttemptExpiryScheduler.class);
+
+    @Autowired
+    @Lazy
+    private QuizAttemptService quizAttemptService;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Value("${quiz.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quiz.expiry.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${quiz.expiry.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${quiz.expiry.grace-seconds:5}")
+    private long graceSeconds;
+
+    @Value("${quiz.expiry.workers:2}")
+    private int workerCount;
+
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile HashedTimingWheel wheel;
+    private ScheduledExecutorService ticker;
+    private ExecutorService workers;
+
+    /**
+     * Starts the ticker and re-tracks every open timed attempt. Runs after the submission
+     * journal replay so replayed submissions are not expired first.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        wheel = new HashedTimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+
+        List<Object[]> openAttempts = quizAttemptRepository.findOpenTimedAttempts();
+        for (Object[] row : openAttempts) {
+            track((Long) row[0], (LocalDateTime) row[1], ((Number) row[2]).intValue());
+        }
+        log.info("Tracking {} open timed attempts", openAttempts.size());
+
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "attempt-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "attempt-expiry-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Tracks an open attempt of a quiz with a time limit (in seconds). Attempts without a limit are ignored.
+     */
+    public void track(Long attemptId, LocalDateTime startTime, Integer timeLimit) {
+        HashedTimingWheel current = wheel;
+        if (current == null || attemptId == null || startTime == null || timeLimit == null || timeLimit <= 0) {
+            return;
+        }
+        current.schedule(attemptId, toEpochMillis(startTime.plusSeconds(timeLimit)));
+    }
+
+    /**
+     * Stops tracking an attempt once it has been submitted.
+     */
+    public void cancel(Long attemptId) {
+        HashedTimingWheel current = wheel;
+        if (current != null && attemptId != null) {
+            current.cancel(attemptId);
+        }
+    }
+
+    /**
+     * @return the deadline of a tracked attempt (without the grace period), or null when it is not tracked
+     */
+    public LocalDateTime getDeadline(Long attemptId) {
+        HashedTimingWheel current = wheel;
+        Long deadline = current != null && attemptId != null ? current.getDeadline(attemptId) : null;
+        return deadline != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(deadline), ZoneId.systemDefault())
+                : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("tracked", wheel != null ? wheel.size() : 0);
+        stats.put("expired", expired.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    private void tick() {
+        try {
+            // The wheel fires at the deadline, the grace period covers submits still in flight
+            long now = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(graceSeconds);
+            for (Long attemptId : wheel.advance(now)) {
+                workers.submit(() -> expire(attemptId));
+            }
+        } catch (RuntimeException e) {
+            log.error("Attempt expiry tick failed", e);
+        }
+    }
+
+    private void expire(Long attemptId) {
+        try {
+            quizAttemptService.autoSubmitExpiredAttempt(attemptId);
+            expired.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Could not auto-submit expired attempt {}", attemptId, e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,136 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.QuizAttempt;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes the remaining time of quiz attempts over Server-Sent Events.
+ * All open streams are served by one shared ticker; deadlines come from the expiry scheduler,
+ * so the database is read at most once per stream.
+ */
+@Service
+public class AttemptTimerService {
+
+    @Autowired
+    private AttemptExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private QuizAttemptService quizAttemptService;
+
+    @Value("${quiz.timer.interval-seconds:1}")
+    private long intervalSeconds;
+
+    private final Map<SseEmitter, TimerStream> streams = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "attempt-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean started;
+
+    public SseEmitter subscribe(Long attemptId) {
+        LocalDateTime deadline = expiryScheduler.getDeadline(attemptId);
+        // The scheduler tracks the attempt until it is submitted or expired
+        boolean tracked = deadline != null;
+
+        if (deadline == null) {
+            QuizAttempt attempt = quizAttemptService.getAttemptById(attemptId)
+                    .orElseThrow(() -> new RuntimeException("Quiz attempt not found with id: " + attemptId));
+            Integer timeLimit = attempt.getQuiz().getTimeLimit();
+
+            if (attempt.getEndTime() != null) {
+                return completed(attemptId, "closed");
+            }
+            if (timeLimit == null || timeLimit <= 0) {
+                return completed(attemptId, "untimed");
+            }
+            deadline = attempt.getStartTime().plusSeconds(timeLimit);
+        }
+
+        long remaining = Math.max(0, Duration.between(LocalDateTime.now(), deadline).getSeconds());
+        SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(remaining + 60));
+        TimerStream stream = new TimerStream(attemptId, deadline, tracked);
+
+        streams.put(emitter, stream);
+        emitter.onCompletion(() -> streams.remove(emitter));
+        emitter.onTimeout(() -> streams.remove(emitter));
+        emitter.onError(error -> streams.remove(emitter));
+
+        ensureStarted();
+        push(emitter, stream, LocalDateTime.now());
+        return emitter;
+    }
+
+    public int getOpenStreams() {
+        return streams.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        streams.keySet().forEach(SseEmitter::complete);
+    }
+
+    private synchronized void ensureStarted() {
+        if (!started) {
+            ticker.scheduleAtFixedRate(this::tick, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+            started = true;
+        }
+    }
+
+    private void tick() {
+        LocalDateTime now = LocalDateTime.now();
+        streams.forEach((emitter, stream) -> push(emitter, stream, now));
+    }
+
+    private void push(SseEmitter emitter, TimerStream stream, LocalDateTime now) {
+        long remaining = Duration.between(now, stream.deadline()).getSeconds();
+        try {
+            if (remaining <= 0) {
+                emitter.send(SseEmitter.event().name("expired").data(Map.of("attemptId", stream.attemptId())));
+                emitter.complete();
+            } else if (stream.tracked() && expiryScheduler.getDeadline(stream.attemptId()) == null) {
+                // No longer tracked before the deadline: the attempt was submitted
+                emitter.send(SseEmitter.event().name("closed").data(Map.of("attemptId", stream.attemptId())));
+                emitter.complete();
+            } else {
+                emitter.send(SseEmitter.event().name("remaining").data(Map.of(
+                        "attemptId", stream.attemptId(),
+                        "remainingSeconds", remaining
+                )));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            streams.remove(emitter);
+        }
+    }
+
+    private SseEmitter completed(Long attemptId, String eventName) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(Map.of("attemptId", attemptId)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private record TimerStream(Long attemptId, LocalDateTime deadline, boolean tracked) {
+    }
+}
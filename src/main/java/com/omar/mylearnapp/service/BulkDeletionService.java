@@ -0,0 +1,146 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Set-based deletion of quizzes and questions with everything that references them.
+ * Responses and attempts are removed in chunks, each chunk in its own short transaction, so a
+ * large quiz never holds its row locks for the whole deletion. An interrupted deletion leaves
+ * the quiz in place with fewer rows and can simply be run again.
+ */
+@Service
+public class BulkDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkDeletionService.class);
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionOptionStatsRepository optionStatsRepository;
+
+    @Autowired
+    private OptionStatsCounters optionStatsCounters;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${quiz.delete.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Deletes a quiz, its attempts, responses, questions and options.
+     *
+     * @return the number of rows removed, by kind
+     */
+    public Map<String, Long> deleteQuiz(Long quizId) {
+        return deleteQuiz(quizId, 0);
+    }
+
+    /**
+     * Same, pausing between chunks so a background purge leaves room to the request traffic.
+     */
+    public Map<String, Long> deleteQuiz(Long quizId, long chunkPauseMillis) {
+        Map<String, Long> report = new LinkedHashMap<>();
+        report.put("responses", deleteInChunks(limit -> responseRepository.findIdsByQuizId(quizId, limit),
+                responseRepository::deleteByIdIn, chunkPauseMillis));
+        report.put("attempts", deleteInChunks(limit -> quizAttemptRepository.findIdsByQuizId(quizId, limit),
+                quizAttemptRepository::deleteByIdIn, chunkPauseMillis));
+
+        // Options and questions are bounded by the quiz content, one transaction is enough
+        transactions().executeWithoutResult(status -> {
+            // Unflushed deltas of the removed options would otherwise be written back as orphan rows
+            Map<Long, List<Long>> optionIdsByQuestion = new HashMap<>();
+            for (Object[] row : optionRepository.findIdsByQuizId(quizId)) {
+                optionIdsByQuestion.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+            }
+            optionIdsByQuestion.forEach(optionStatsCounters::discardOptions);
+            optionStatsRepository.deleteAllByQuizId(quizId);
+            report.put("options", (long) optionRepository.deleteAllByQuizId(quizId));
+            report.put("questions", (long) questionRepository.deleteAllByQuizId(quizId));
+            report.put("quizzes", (long) quizRepository.deleteQuizById(quizId));
+        });
+        log.info("Deleted quiz {}: {}", quizId, report);
+        return report;
+    }
+
+    /**
+     * Deletes a question, its options and every response given to it.
+     *
+     * @return the number of rows removed, by kind
+     */
+    public Map<String, Long> deleteQuestion(Long questionId) {
+        Map<String, Long> report = new LinkedHashMap<>();
+        report.put("responses", deleteInChunks(limit -> responseRepository.findIdsByQuestionId(questionId, limit),
+                responseRepository::deleteByIdIn, 0));
+
+        transactions().executeWithoutResult(status -> {
+            optionStatsCounters.discardOptions(questionId, optionRepository.findIdsByQuestionId(questionId));
+            optionStatsRepository.deleteAllByQuestionId(questionId);
+            report.put("options", (long) optionRepository.deleteAllByQuestionId(questionId));
+            report.put("questions", (long) questionRepository.deleteQuestionById(questionId));
+        });
+        return report;
+    }
+
+    private long deleteInChunks(Function<Limit, List<Long>> findIds, ToIntFunction<Collection<Long>> deleteIds,
+                                long pauseMillis) {
+        long deleted = 0;
+        int found;
+        do {
+            if (deleted > 0 && pauseMillis > 0) {
+                pause(pauseMillis);
+            }
+            // found and removed ids of one chunk
+            int[] chunk = transactions().execute(status -> {
+                List<Long> ids = findIds.apply(Limit.of(chunkSize));
+                return new int[]{ids.size(), ids.isEmpty() ? 0 : deleteIds.applyAsInt(ids)};
+            });
+            found = chunk[0];
+            deleted += chunk[1];
+        } while (found == chunkSize);
+        return deleted;
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Deletion interrupted", e);
+        }
+    }
+
+    private TransactionTemplate transactions() {
+        return new TransactionTemplate(transactionManager);
+    }
+}
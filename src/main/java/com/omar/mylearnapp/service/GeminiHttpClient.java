@@ -0,0 +1,292 @@
+package com.omar.mylearnapp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP client of the Gemini API: a keep-alive connection pool bounded per route, with deadlines on
+ * waiting for a pooled connection, connecting, every read and the whole exchange. A slow upstream
+ * therefore fails the call instead of pinning the request thread.
+ */
+@Component
+public class GeminiHttpClient {
+
+    @Value("${gemini.http.max-connections:20}")
+    private int maxConnections;
+
+    @Value("${gemini.http.max-per-route:10}")
+    private int maxPerRoute;
+
+    @Value("${gemini.http.pool-timeout-ms:2000}")
+    private long poolTimeoutMillis;
+
+    @Value("${gemini.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMillis;
+
+    @Value("${gemini.http.read-timeout-ms:60000}")
+    private long readTimeoutMillis;
+
+    @Value("${gemini.http.total-timeout-ms:120000}")
+    private long totalTimeoutMillis;
+
+    @Value("${gemini.http.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong poolTimeouts = new AtomicLong();
+    private final AtomicLong connectTimeouts = new AtomicLong();
+    private final AtomicLong readTimeouts = new AtomicLong();
+    private final AtomicLong deadlineTimeouts = new AtomicLong();
+
+    // Aborts exchanges still running at their total deadline, a deadline is dropped when its response is closed
+    private final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "gemini-http-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+
+    @PostConstruct
+    public void init() {
+        deadlines.setRemoveOnCancelPolicy(true);
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .build())
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMillis))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+
+        restTemplate = new RestTemplate(new DeadlineRequestFactory(httpClient));
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            requests.incrementAndGet();
+            try {
+                return execution.execute(request, body);
+            } catch (IOException e) {
+                countFailure(e);
+                throw e;
+            }
+        });
+    }
+
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (connectionManager != null) {
+            PoolStats pool = connectionManager.getTotalStats();
+            stats.put("leased", pool.getLeased());
+            stats.put("pending", pool.getPending());
+            stats.put("available", pool.getAvailable());
+            stats.put("max", pool.getMax());
+        }
+        stats.put("requests", requests.get());
+        stats.put("failures", failures.get());
+        stats.put("poolTimeouts", poolTimeouts.get());
+        stats.put("connectTimeouts", connectTimeouts.get());
+        stats.put("readTimeouts", readTimeouts.get());
+        stats.put("deadlineTimeouts", deadlineTimeouts.get());
+        stats.put("pendingDeadlines", deadlines.getQueue().size());
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        deadlines.shutdownNow();
+        if (httpClient != null) {
+            httpClient.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    private void countFailure(IOException e) {
+        failures.incrementAndGet();
+        if (e instanceof ConnectionRequestTimeoutException) {
+            poolTimeouts.incrementAndGet();
+        } else if (e instanceof ConnectTimeoutException) {
+            connectTimeouts.incrementAndGet();
+        } else if (e instanceof SocketTimeoutException) {
+            readTimeouts.incrementAndGet();
+        } else if (e instanceof InterruptedIOException) {
+            // Request aborted by the total deadline
+            deadlineTimeouts.incrementAndGet();
+        }
+    }
+
+    /**
+     * Wraps every request so that its exchange is aborted at the total deadline.
+     */
+    private final class DeadlineRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        // Hands the request built by createHttpUriRequest over to createRequest, on the calling thread
+        private final ThreadLocal<HttpUriRequestBase> created = new ThreadLocal<>();
+
+        DeadlineRequestFactory(CloseableHttpClient httpClient) {
+            super(httpClient);
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            ClientHttpRequest request;
+            HttpUriRequestBase abortable;
+            try {
+                request = super.createRequest(uri, httpMethod);
+                abortable = created.get();
+            } finally {
+                created.remove();
+            }
+            if (abortable == null || totalTimeoutMillis <= 0) {
+                return request;
+            }
+            return new DeadlineRequest(request, abortable);
+        }
+
+        @Override
+        protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+            ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+            if (request instanceof HttpUriRequestBase abortable) {
+                created.set(abortable);
+            }
+            return request;
+        }
+    }
+
+    /**
+     * Schedules the abort when the exchange starts. The deadline covers reading the body through the
+     * response and is cancelled once the response is closed, or when the exchange fails.
+     */
+    private final class DeadlineRequest implements ClientHttpRequest {
+        private final ClientHttpRequest delegate;
+        private final HttpUriRequestBase abortable;
+
+        DeadlineRequest(ClientHttpRequest delegate, HttpUriRequestBase abortable) {
+            this.delegate = delegate;
+            this.abortable = abortable;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            ScheduledFuture<?> deadline = deadlines.schedule(abortable::cancel, totalTimeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                return new DeadlineResponse(delegate.execute(), deadline);
+            } catch (IOException | RuntimeException e) {
+                deadline.cancel(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return delegate.getAttributes();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+    }
+
+    private static final class DeadlineResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final ScheduledFuture<?> deadline;
+
+        DeadlineResponse(ClientHttpResponse delegate, ScheduledFuture<?> deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+    }
+}
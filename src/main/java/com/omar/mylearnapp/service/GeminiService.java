@@ -3,38 +3,108 @@ package com.omar.mylearnapp.service;
 import com.omar.mylearnapp.model.Quiz;
 import com.omar.mylearnapp.model.Question;
 import com.omar.mylearnapp.model.Option;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.http.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 public class GeminiService {
 
+    // Part of the cache key, bump it whenever buildPrompt changes so earlier answers are not reused
+    static final int PROMPT_VERSION = 1;
+
     @Value("${gemini.api.key}")
     private String apiKey;
 
     @Value("${gemini.model.id}")
     private String modelId;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${gemini.api.base-url:https://generativelanguage.googleapis.com/v1beta}")
+    private String baseUrl;
+
+    @Autowired
+    private GeminiHttpClient geminiHttpClient;
+
+    @Autowired
+    private GeneratedQuizCache generatedQuizCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public Quiz generateQuiz(String sourceType, String content, int numQuestions, String difficulty, String category) {
+        return generateQuiz(sourceType, content, numQuestions, difficulty, category, false);
+    }
+
+    /**
+     * @param force call Gemini even if the same request was answered before; the new answer
+     *              replaces the cached one
+     */
+    public Quiz generateQuiz(String sourceType, String content, int numQuestions, String difficulty, String category,
+                             boolean force) {
+        String key = cacheKey(sourceType, content, numQuestions, difficulty);
+        if (!force) {
+            Optional<String> cached = generatedQuizCache.get(key);
+            if (cached.isPresent()) {
+                return toQuiz(cached.get(), category, difficulty);
+            }
+        }
         try {
             String prompt = buildPrompt(sourceType, content, numQuestions, difficulty);
             String response = callGeminiAPI(prompt);
-            return parseQuizResponse(response, category, difficulty);
+            String quizJson = extractQuizJson(responseText(response));
+            Quiz quiz = toQuiz(quizJson, category, difficulty);
+            generatedQuizCache.put(key, modelId, quizJson);
+            return quiz;
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate quiz with Gemini: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Same as generateQuiz through the streaming endpoint: each question is handed to onQuestion as
+     * soon as the model has written it, long before the whole quiz is complete. A cached quiz hands
+     * over all its questions at once.
+     */
+    public Quiz generateQuizStreaming(String sourceType, String content, int numQuestions, String difficulty,
+                                      String category, boolean force, Consumer<Question> onQuestion) {
+        String key = cacheKey(sourceType, content, numQuestions, difficulty);
+        if (!force) {
+            Optional<String> cached = generatedQuizCache.get(key);
+            if (cached.isPresent()) {
+                Quiz quiz = toQuiz(cached.get(), category, difficulty);
+                quiz.getQuestions().forEach(onQuestion);
+                return quiz;
+            }
+        }
+        try {
+            String prompt = buildPrompt(sourceType, content, numQuestions, difficulty);
+            QuizStreamParser parser = new QuizStreamParser(json -> onQuestion.accept(parseQuestion(new JSONObject(json))));
+            streamGeminiAPI(prompt, parser::feed);
+            String quizJson = extractQuizJson(parser.getText());
+            Quiz quiz = toQuiz(quizJson, category, difficulty);
+            generatedQuizCache.put(key, modelId, quizJson);
+            return quiz;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate quiz with Gemini: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Everything the answer of the model depends on; the category is not part of the prompt.
+     */
+    private String cacheKey(String sourceType, String content, int numQuestions, String difficulty) {
+        return GeneratedQuizCache.key(sourceType, content, numQuestions, difficulty, modelId, PROMPT_VERSION);
+    }
+
     private String buildPrompt(String sourceType, String content, int numQuestions, String difficulty) {
         return String.format("""
                 Generate a quiz with %d multiple-choice questions about the following %s:
@@ -66,29 +136,80 @@ public class GeminiService {
     }
 
     private String callGeminiAPI(String prompt) {
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/" + modelId + ":generateContent?key=" + apiKey;
-
-        Map<String, Object> part = Map.of("text", prompt);
-        Map<String, Object> content = Map.of("parts", List.of(part));
-        Map<String, Object> requestBody = Map.of("contents", List.of(content));
+        String url = baseUrl + "/models/" + modelId + ":generateContent?key=" + apiKey;
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody(prompt), headers);
 
-        ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+        ResponseEntity<String> response = geminiHttpClient.getRestTemplate().postForEntity(url, entity, String.class);
         return response.getBody();
     }
 
-    private Quiz parseQuizResponse(String response, String category, String difficulty) {
+    /**
+     * Reads the server-sent events of streamGenerateContent, passing the text of each chunk on as it arrives.
+     */
+    private void streamGeminiAPI(String prompt, Consumer<String> onText) {
+        String url = baseUrl + "/models/" + modelId + ":streamGenerateContent?alt=sse&key=" + apiKey;
+        RestTemplate restTemplate = geminiHttpClient.getRestTemplate();
+
+        restTemplate.execute(url, HttpMethod.POST, request -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+            request.getBody().write(objectMapper.writeValueAsBytes(requestBody(prompt)));
+        }, response -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("data:")) {
+                        onText.accept(chunkText(new JSONObject(line.substring(5).trim())));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static Map<String, Object> requestBody(String prompt) {
+        Map<String, Object> part = Map.of("text", prompt);
+        Map<String, Object> content = Map.of("parts", List.of(part));
+        return Map.of("contents", List.of(content));
+    }
+
+    private static String chunkText(JSONObject chunk) {
+        JSONArray candidates = chunk.optJSONArray("candidates");
+        if (candidates == null || candidates.length() == 0) {
+            return "";
+        }
+        JSONObject content = candidates.getJSONObject(0).optJSONObject("content");
+        JSONArray parts = content == null ? null : content.optJSONArray("parts");
+        if (parts == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < parts.length(); i++) {
+            text.append(parts.getJSONObject(i).optString("text"));
+        }
+        return text.toString();
+    }
+
+    private static String responseText(String response) {
         JSONObject jsonResponse = new JSONObject(response);
         JSONObject content = jsonResponse.getJSONArray("candidates").getJSONObject(0).getJSONObject("content");
-        String text = content.getJSONArray("parts").getJSONObject(0).getString("text");
+        return content.getJSONArray("parts").getJSONObject(0).getString("text");
+    }
 
+    /**
+     * The quiz object written by the model, without any text around it.
+     */
+    private static String extractQuizJson(String text) {
         int startIndex = text.indexOf("{");
         int endIndex = text.lastIndexOf("}") + 1;
-        String jsonStr = text.substring(startIndex, endIndex);
+        return text.substring(startIndex, endIndex);
+    }
 
+    private Quiz toQuiz(String jsonStr, String category, String difficulty) {
         JSONObject quizData = new JSONObject(jsonStr);
         Quiz quiz = new Quiz();
         quiz.setTitle(quizData.getString("title"));
@@ -103,25 +224,28 @@ public class GeminiService {
         JSONArray questionsArray = quizData.getJSONArray("questions");
 
         for (int i = 0; i < questionsArray.length(); i++) {
-            JSONObject qJson = questionsArray.getJSONObject(i);
-            Question question = new Question();
-            question.setText(qJson.getString("text"));
-
-            List<Option> options = new ArrayList<>();
-            JSONArray optionsArray = qJson.getJSONArray("options");
-            for (int j = 0; j < optionsArray.length(); j++) {
-                JSONObject optJson = optionsArray.getJSONObject(j);
-                Option option = new Option();
-                option.setText(optJson.getString("text"));
-                option.setIsCorrect(optJson.getBoolean("isCorrect"));
-                options.add(option);
-            }
-
-            question.setOptions(options);
-            questions.add(question);
+            questions.add(parseQuestion(questionsArray.getJSONObject(i)));
         }
 
         quiz.setQuestions(questions);
         return quiz;
     }
+
+    private Question parseQuestion(JSONObject qJson) {
+        Question question = new Question();
+        question.setText(qJson.getString("text"));
+
+        List<Option> options = new ArrayList<>();
+        JSONArray optionsArray = qJson.getJSONArray("options");
+        for (int j = 0; j < optionsArray.length(); j++) {
+            JSONObject optJson = optionsArray.getJSONObject(j);
+            Option option = new Option();
+            option.setText(optJson.getString("text"));
+            option.setIsCorrect(optJson.getBoolean("isCorrect"));
+            options.add(option);
+        }
+
+        question.setOptions(options);
+        return question;
+    }
 }
@@ -0,0 +1,157 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.GeneratedQuiz;
+import com.omar.mylearnapp.repository.GeneratedQuizRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Content-addressed cache of the quizzes generated by Gemini. Entries are keyed by the SHA-256 of
+ * every input of the prompt and hold the quiz JSON returned by the model. A bounded LRU map in
+ * memory sits in front of the generated_quizzes table, which keeps entries across restarts. Both
+ * tiers stop serving an entry once gemini.cache.ttl-days has passed since it was generated.
+ * The cache only ever saves a call: failing to read or write the table degrades to a miss.
+ */
+@Component
+public class GeneratedQuizCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneratedQuizCache.class);
+
+    @Autowired
+    private GeneratedQuizRepository generatedQuizRepository;
+
+    @Value("${gemini.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gemini.cache.max-entries:200}")
+    private int maxEntries;
+
+    @Value("${gemini.cache.ttl-days:30}")
+    private long ttlDays;
+
+    // Access-ordered, the least recently requested quiz is dropped first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long memoryHits;
+    private long storeHits;
+    private long misses;
+    private long stores;
+
+    /**
+     * SHA-256 in hex of the given parts, separated so that moving text from one part to the next
+     * changes the key.
+     */
+    public static String key(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ttlDays);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.createdAt().isAfter(cutoff)) {
+                memoryHits++;
+                return Optional.of(entry.quizJson());
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+
+        Optional<GeneratedQuiz> stored;
+        try {
+            stored = generatedQuizRepository.findById(key)
+                    .filter(entry -> entry.getCreatedAt().isAfter(cutoff));
+        } catch (RuntimeException e) {
+            log.warn("Could not read generated quiz {}: {}", key, e.getMessage());
+            stored = Optional.empty();
+        }
+
+        synchronized (this) {
+            if (stored.isEmpty()) {
+                misses++;
+                return Optional.empty();
+            }
+            storeHits++;
+            remember(key, new Entry(stored.get().getQuizJson(), stored.get().getCreatedAt()));
+        }
+        return stored.map(GeneratedQuiz::getQuizJson);
+    }
+
+    public void put(String key, String modelId, String quizJson) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (this) {
+            remember(key, new Entry(quizJson, now));
+            stores++;
+        }
+        try {
+            generatedQuizRepository.save(new GeneratedQuiz(key, modelId, quizJson, now));
+        } catch (RuntimeException e) {
+            log.warn("Could not store generated quiz {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the stored quizzes past their TTL, and drops them from memory.
+     */
+    @Scheduled(cron = "${gemini.cache.purge-cron:0 0 4 * * *}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ttlDays);
+        synchronized (this) {
+            entries.values().removeIf(entry -> !entry.createdAt().isAfter(cutoff));
+        }
+        int deleted = generatedQuizRepository.deleteByCreatedAtBefore(cutoff);
+        if (deleted > 0) {
+            log.info("Purged {} expired generated quizzes", deleted);
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("memoryHits", memoryHits);
+        stats.put("storeHits", storeHits);
+        stats.put("misses", misses);
+        stats.put("stores", stores);
+        return stats;
+    }
+
+    private void remember(String key, Entry entry) {
+        entries.put(key, entry);
+        if (entries.size() > maxEntries) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    private record Entry(String quizJson, LocalDateTime createdAt) {
+    }
+}
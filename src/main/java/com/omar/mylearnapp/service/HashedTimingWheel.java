@@ -0,0 +1,134 @@
+package com.omar.mylearnapp.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel keyed by a long id: scheduling and cancelling are O(1),
+ * each tick only visits the timeouts hashed into the current bucket.
+ * {@link #schedule} and {@link #cancel} may be called from any thread,
+ * {@link #advance} must always be called from the same (ticker) thread.
+ */
+public class HashedTimingWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<LinkedList<Timeout>> buckets;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Timeout> timeouts = new ConcurrentHashMap<>();
+    private final long startMillis;
+    private long tick;
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        // Round the wheel size up to a power of two so the bucket index is a mask
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new LinkedList<>());
+        }
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Schedules (or reschedules) the id to expire at the given epoch millis.
+     */
+    public void schedule(long id, long deadlineMillis) {
+        Timeout timeout = new Timeout(id, deadlineMillis);
+        Timeout previous = timeouts.put(id, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        pending.add(timeout);
+    }
+
+    public boolean cancel(long id) {
+        Timeout timeout = timeouts.remove(id);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.cancelled = true;
+        return true;
+    }
+
+    /**
+     * @return the deadline of a scheduled id, or null when it is not tracked
+     */
+    public Long getDeadline(long id) {
+        Timeout timeout = timeouts.get(id);
+        return timeout != null ? timeout.deadlineMillis : null;
+    }
+
+    public int size() {
+        return timeouts.size();
+    }
+
+    /**
+     * Moves the wheel forward up to the given time.
+     *
+     * @return the ids whose deadline has passed, in expiry order
+     */
+    public List<Long> advance(long nowMillis) {
+        List<Long> expired = new ArrayList<>();
+        while (startMillis + (tick + 1) * tickMillis <= nowMillis) {
+            transferPending();
+            expireBucket(buckets.get((int) (tick & mask)), expired);
+            tick++;
+        }
+        return expired;
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long deadlineTick = Math.max((timeout.deadlineMillis - startMillis) / tickMillis, tick);
+            timeout.remainingRounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private void expireBucket(LinkedList<Timeout> bucket, List<Long> expired) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                if (timeouts.remove(timeout.id, timeout)) {
+                    expired.add(timeout.id);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    private static final class Timeout {
+        private final long id;
+        private final long deadlineMillis;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(long id, long deadlineMillis) {
+            this.id = id;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
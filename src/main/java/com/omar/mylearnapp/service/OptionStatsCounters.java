@@ -0,0 +1,208 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.QuestionOptionStats;
+import com.omar.mylearnapp.model.Response;
+import com.omar.mylearnapp.repository.QuestionOptionStatsRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-option response counters. Submissions bump striped in-memory adders once their transaction
+ * commits, a background task flushes the accumulated deltas to question_option_stats, and reads
+ * add the unflushed delta to the persisted counts, so distributions are live without querying responses.
+ */
+@Component
+public class OptionStatsCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(OptionStatsCounters.class);
+
+    @Autowired
+    private QuestionOptionStatsRepository optionStatsRepository;
+
+    // Unflushed deltas by question id, then option id. Entries are only removed for deleted options,
+    // which no longer receive increments, so an increment can not race a removal
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, Delta>> deltas = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    /**
+     * Fills question_option_stats from the responses table on the first start. Runs before the
+     * submission journal replay, whose writes are counted by the adders.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(-10)
+    @Transactional
+    public void seed() {
+        if (optionStatsRepository.count() == 0) {
+            int rows = optionStatsRepository.insertAllFromResponses();
+            log.info("Seeded option statistics for {} options", rows);
+        }
+    }
+
+    /**
+     * Counts graded responses that the current transaction is writing.
+     */
+    public void recordResponses(List<PendingSubmission.GradedResponse> responses) {
+        add(responses, 1);
+    }
+
+    /**
+     * Takes responses that the current transaction is deleting back out of the counts.
+     */
+    public void removeResponses(List<Response> responses) {
+        List<PendingSubmission.GradedResponse> removed = new ArrayList<>(responses.size());
+        for (Response response : responses) {
+            if (response.getQuestion() != null && response.getSelectedOption() != null) {
+                removed.add(new PendingSubmission.GradedResponse(response.getQuestion().getId(),
+                        response.getSelectedOption().getId(), response.isCorrect()));
+            }
+        }
+        add(removed, -1);
+    }
+
+    /**
+     * Drops the unflushed deltas of options the current transaction is deleting, once it commits,
+     * so that the next flush does not write their rows back.
+     */
+    public void discardOptions(Long questionId, Collection<Long> optionIds) {
+        List<Long> discarded = List.copyOf(optionIds);
+        afterCommit(() -> {
+            Map<Long, Delta> pending = deltas.get(questionId);
+            if (pending != null) {
+                discarded.forEach(pending::remove);
+            }
+        });
+    }
+
+    /**
+     * @return response and correct counts of a question by option id, persisted plus unflushed
+     */
+    public Map<Long, long[]> getCounts(Long questionId) {
+        Map<Long, long[]> counts = new HashMap<>();
+        for (QuestionOptionStats stats : optionStatsRepository.findByQuestionId(questionId)) {
+            counts.put(stats.getOptionId(), new long[]{stats.getResponseCount(), stats.getCorrectCount()});
+        }
+        Map<Long, Delta> pending = deltas.get(questionId);
+        if (pending != null) {
+            for (Map.Entry<Long, Delta> entry : pending.entrySet()) {
+                long[] count = counts.computeIfAbsent(entry.getKey(), optionId -> new long[2]);
+                count[0] += entry.getValue().responses.sum();
+                count[1] += entry.getValue().correct.sum();
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Writes the accumulated deltas. The flushed amounts are subtracted from the adders only after
+     * the commit, so concurrent increments are kept and a failed flush is retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${quiz.option-stats.flush-ms:5000}")
+    @Transactional
+    public void flush() {
+        List<Flushed> flushed = new ArrayList<>();
+        for (Map.Entry<Long, ConcurrentHashMap<Long, Delta>> question : deltas.entrySet()) {
+            for (Map.Entry<Long, Delta> option : question.getValue().entrySet()) {
+                Delta delta = option.getValue();
+                long responses = delta.responses.sum();
+                long correct = delta.correct.sum();
+                if (responses == 0 && correct == 0) {
+                    continue;
+                }
+                optionStatsRepository.addCounts(option.getKey(), question.getKey(), responses, correct);
+                flushed.add(new Flushed(delta, responses, correct));
+            }
+        }
+        if (flushed.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            for (Flushed row : flushed) {
+                row.delta.responses.add(-row.responses);
+                row.delta.correct.add(-row.correct);
+            }
+            flushes.incrementAndGet();
+            flushedRows.addAndGet(flushed.size());
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        long tracked = 0;
+        long pending = 0;
+        for (Map<Long, Delta> options : deltas.values()) {
+            for (Delta delta : options.values()) {
+                tracked++;
+                if (delta.responses.sum() != 0 || delta.correct.sum() != 0) {
+                    pending++;
+                }
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedOptions", tracked);
+        stats.put("pendingOptions", pending);
+        stats.put("flushes", flushes.get());
+        stats.put("flushedRows", flushedRows.get());
+        return stats;
+    }
+
+    private void add(List<PendingSubmission.GradedResponse> responses, int count) {
+        if (responses.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            for (PendingSubmission.GradedResponse response : responses) {
+                deltas.computeIfAbsent(response.questionId(), id -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(response.optionId(), id -> new Delta())
+                        .add(count, response.correct());
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Delta {
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder correct = new LongAdder();
+
+        private void add(int count, boolean isCorrect) {
+            responses.add(count);
+            if (isCorrect) {
+                correct.add(count);
+            }
+        }
+    }
+
+    private record Flushed(Delta delta, long responses, long correct) {
+    }
+}
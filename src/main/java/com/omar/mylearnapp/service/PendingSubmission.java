@@ -0,0 +1,19 @@
+package com.omar.mylearnapp.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A graded submission waiting to be written by the write-behind queue.
+ * Only ids are kept so the entry can be journaled and replayed after a restart.
+ */
+public record PendingSubmission(Long attemptId,
+                                Long quizId,
+                                LocalDateTime endTime,
+                                long timeTakenSeconds,
+                                int score,
+                                List<GradedResponse> responses) {
+
+    public record GradedResponse(Long questionId, Long optionId, boolean correct) {
+    }
+}
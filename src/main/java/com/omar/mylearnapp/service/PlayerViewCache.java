@@ -0,0 +1,199 @@
+package com.omar.mylearnapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-encoded student "player view" of a quiz: the quiz with its questions and options,
+ * without the answer flags. The JSON (and its gzip form) is built once per quiz version from the
+ * QuizContentCache snapshot, so serving it needs neither entity loading nor serialization.
+ */
+@Component
+public class PlayerViewCache {
+
+    @Autowired
+    private QuizContentCache quizContentCache;
+
+    @Value("${quiz.player-view.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${quiz.player-view.gzip:true}")
+    private boolean gzipEnabled;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Access-ordered, the least recently played quiz is dropped first
+    private final LinkedHashMap<Long, PlayerView> views = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long builds;
+
+    public Optional<PlayerView> getPlayerView(Long quizId) {
+        Optional<QuizSnapshot> snapshot = quizContentCache.getSnapshot(quizId);
+        if (snapshot.isEmpty()) {
+            synchronized (this) {
+                views.remove(quizId);
+            }
+            return Optional.empty();
+        }
+
+        synchronized (this) {
+            PlayerView cached = views.get(quizId);
+            // Every content change bumps the version, a snapshot reloaded after a plain eviction is still served
+            if (cached != null && cached.version == snapshot.get().version()) {
+                return Optional.of(cached);
+            }
+        }
+
+        PlayerView view = build(snapshot.get());
+        synchronized (this) {
+            views.put(quizId, view);
+            builds++;
+            if (views.size() > maxEntries) {
+                views.remove(views.keySet().iterator().next());
+            }
+        }
+        return Optional.of(view);
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip, honouring q-values: "gzip;q=0" refuses it
+     * and an explicit gzip entry takes precedence over "*".
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double weight = 1.0;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        weight = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        weight = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = weight;
+            } else if (name.equals("*")) {
+                any = weight;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", views.size());
+        stats.put("builds", builds);
+        return stats;
+    }
+
+    private PlayerView build(QuizSnapshot snapshot) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", snapshot.id());
+        payload.put("title", snapshot.title());
+        payload.put("description", snapshot.description());
+        payload.put("difficulty", snapshot.difficulty());
+        payload.put("category", snapshot.category());
+        payload.put("icon", snapshot.icon());
+        payload.put("color", snapshot.color());
+        payload.put("timeLimit", snapshot.timeLimit());
+        payload.put("topicName", snapshot.topicName());
+
+        List<Map<String, Object>> questions = new ArrayList<>(snapshot.questions().size());
+        for (QuizSnapshot.QuestionSnapshot question : snapshot.questions()) {
+            List<Map<String, Object>> options = new ArrayList<>(question.options().size());
+            for (QuizSnapshot.OptionSnapshot option : question.options()) {
+                // Only id and text, the correct flag never leaves the server
+                Map<String, Object> optionPayload = new LinkedHashMap<>();
+                optionPayload.put("id", option.id());
+                optionPayload.put("text", option.text());
+                options.add(optionPayload);
+            }
+            Map<String, Object> questionPayload = new LinkedHashMap<>();
+            questionPayload.put("id", question.id());
+            questionPayload.put("text", question.text());
+            questionPayload.put("options", options);
+            questions.add(questionPayload);
+        }
+        payload.put("questions", questions);
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            return new PlayerView(snapshot.id(), snapshot.version(), json, gzipEnabled ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to encode player view of quiz " + snapshot.id(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encoded payload of one quiz. The byte arrays are shared, callers must not modify them.
+     */
+    public static class PlayerView {
+        private final Long quizId;
+        private final long version;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        PlayerView(Long quizId, long version, byte[] json, byte[] gzip) {
+            this.quizId = quizId;
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public Long getQuizId() {
+            return quizId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        public boolean hasGzip() {
+            return gzip != null;
+        }
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class QuestionService {
@@ -24,12 +26,21 @@ public class QuestionService {
     @Autowired
     private QuizRepository quizRepository;
 
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private QuizContentCache quizContentCache;
+
+    @Autowired
+    private BulkDeletionService bulkDeletionService;
+
     public List<Question> getAllQuestions() {
         return questionRepository.findAll();
     }
 
     public List<Question> getQuestionsByQuizId(Long quizId) {
-        return questionRepository.findByQuizId(quizId);
+        return questionRepository.findWithOptionsByQuizId(quizId);
     }
 
     public Question getQuestionById(Long id) {
@@ -57,10 +68,24 @@ public class QuestionService {
             }
         }
 
+        Quiz quiz = savedQuestion.getQuiz();
+        if (quiz != null && quiz.getId() != null) {
+            quiz.setVersion(quiz.getVersion() + 1);
+            answerKeyCache.evict(quiz.getId());
+            quizContentCache.evict(quiz.getId());
+        }
         return savedQuestion;
     }
 
-    public void deleteQuestion(Long id) {
-        questionRepository.deleteById(id);
+    public Map<String, Long> deleteQuestion(Long id) {
+        Optional<Long> quizId = questionRepository.findQuizIdById(id);
+        Map<String, Long> report = bulkDeletionService.deleteQuestion(id);
+        // The owning quiz is not loaded here, so its version is bumped in the database
+        quizId.ifPresent(ownerId -> {
+            quizRepository.incrementVersion(ownerId);
+            answerKeyCache.evict(ownerId);
+            quizContentCache.evict(ownerId);
+        });
+        return report;
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,27 +34,59 @@ public class QuizAttemptService {
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private QuizContentCache quizContentCache;
+
+    @Autowired
+    private SubmissionWriteBehindQueue submissionQueue;
+
+    @Autowired
+    private SubmissionWriter submissionWriter;
+
+    @Autowired
+    private AttemptExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private OptionStatsCounters optionStatsCounters;
+
+    @Autowired
+    private ActivityCounters activityCounters;
+
     @Transactional
     public QuizAttempt startQuizAttempt(String clerkId,Long quizId){
         User user = userRepository.findByClerkId(clerkId)
                 .orElseThrow(()->new RuntimeException("User not found with clerk id: " +clerkId));
-        Quiz quiz=quizRepository.findById(quizId)
+        QuizSnapshot quiz = quizContentCache.getSnapshot(quizId)
                 .orElseThrow(()->new RuntimeException("Quiz not found with id: " +quizId));
         QuizAttempt attempt=new QuizAttempt();
         attempt.setUser(user);
-        attempt.setQuiz(quiz);
+        attempt.setQuiz(quizRepository.getReferenceById(quizId));
         attempt.setStartTime(LocalDateTime.now());
-        attempt.setTotalQuestions(quiz.getQuestions()!= null ? quiz.getQuestions().size() : 0);
+        attempt.setTotalQuestions(quiz.getQuestionCount());
 
-        return quizAttemptRepository.save(attempt);
+        QuizAttempt savedAttempt = quizAttemptRepository.save(attempt);
+        expiryScheduler.track(savedAttempt.getId(), savedAttempt.getStartTime(), quiz.timeLimit());
+        activityCounters.record(ActivityCounters.Event.STARTED);
+        return savedAttempt;
 
     }
 
     @Transactional
     public QuizAttempt submitQuizAttempt(Long attemptId, Map<Long,Long> responses){
-        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+        // Locked until commit, a concurrent submit or the expiry then sees the attempt as closed
+        QuizAttempt attempt = quizAttemptRepository.findByIdForUpdate(attemptId)
                 .orElseThrow(()->new RuntimeException("Quiz attempt not found with id: " +attemptId));
-        attempt.setEndTime(LocalDateTime.now());
+        requireLiveQuiz(attempt);
+        // A resubmission overwrites the attempt, the aggregate then swaps its previous result for the new one
+        boolean firstSubmission = attempt.getEndTime() == null;
+        int previousScore = attempt.getScore();
+        Long previousTimeTaken = attempt.getTimeTakenSeconds();
 
         LocalDateTime now= LocalDateTime.now();
         attempt.setEndTime(now);
@@ -72,37 +105,158 @@ public class QuizAttemptService {
         int correctAnswers=0;
 
         if(!timeLimitExceeded) {
-            for(Map.Entry<Long,Long> entry: responses.entrySet()) {
-                Long questionId = entry.getKey();
-                Long selectedOptionId = entry.getValue();
-
-                Question question = questionRepository.findById(questionId)
-                        .orElseThrow(() -> new RuntimeException("Question not found with id: " + questionId));
-                Option selectedOption = optionRepository.findById(selectedOptionId)
-                        .orElseThrow(() -> new RuntimeException("Option not found with id: " + selectedOptionId));
-
+            List<PendingSubmission.GradedResponse> gradedResponses = gradeResponses(quiz.getId(), responses);
+            for (PendingSubmission.GradedResponse graded : gradedResponses) {
                 Response response = new Response();
                 response.setQuizAttempt(attempt);
-                response.setQuestion(question);
-                response.setSelectedOption(selectedOption);
-                response.setCorrect(selectedOption.isCorrect());
+                response.setQuestion(questionRepository.getReferenceById(graded.questionId()));
+                response.setSelectedOption(optionRepository.getReferenceById(graded.optionId()));
+                response.setCorrect(graded.correct());
 
-                responseList.add(responseRepository.save(response));
+                responseList.add(response);
 
-                if (selectedOption.isCorrect()) {
+                if (graded.correct()) {
                     correctAnswers++;
                 }
             }
+            // Sequence ids let Hibernate send all the responses as one JDBC batch
+            responseList = responseRepository.saveAll(responseList);
+            optionStatsCounters.recordResponses(gradedResponses);
         }
 
 
             attempt.setScore(correctAnswers);
             attempt.setResponses(responseList);
 
+            if (firstSubmission) {
+                quizStatsService.recordAttempt(quiz.getId(), correctAnswers, secondsTaken);
+                activityCounters.record(ActivityCounters.Event.SUBMITTED);
+            } else {
+                quizStatsService.replaceAttempt(quiz.getId(), previousScore, previousTimeTaken, correctAnswers, secondsTaken);
+            }
+            expiryScheduler.cancel(attemptId);
             return quizAttemptRepository.save(attempt);
 
         }
 
+    public boolean isWriteBehindEnabled() {
+        return submissionQueue.isEnabled();
+    }
+
+    /**
+     * Grades the submission synchronously and hands the writes to the write-behind queue.
+     * The returned attempt carries the score but is not persisted yet.
+     * When the queue stays full the submission is written synchronously instead.
+     * The score is only returned once the attempt is closed by this submission, so an attempt that is
+     * already submitted, or whose submission is still queued, is refused.
+     */
+    public QuizAttempt submitQuizAttemptWriteBehind(Long attemptId, Map<Long,Long> responses) {
+        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+                .orElseThrow(()->new RuntimeException("Quiz attempt not found with id: " +attemptId));
+        requireLiveQuiz(attempt);
+        if (attempt.getEndTime() != null) {
+            throw alreadySubmitted(attemptId);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long secondsTaken = ChronoUnit.SECONDS.between(attempt.getStartTime(), now);
+
+        Quiz quiz = attempt.getQuiz();
+        boolean timeLimitExceeded = quiz.getTimeLimit() != null && secondsTaken > quiz.getTimeLimit();
+
+        List<PendingSubmission.GradedResponse> graded = timeLimitExceeded
+                ? List.of()
+                : gradeResponses(quiz.getId(), responses);
+        int score = (int) graded.stream().filter(PendingSubmission.GradedResponse::correct).count();
+
+        PendingSubmission submission = new PendingSubmission(attemptId, quiz.getId(), now, secondsTaken, score, graded);
+        if (!submissionQueue.claim(attemptId)) {
+            throw alreadySubmitted(attemptId);
+        }
+        // Graded in memory only, the expiry must not close the attempt before the writers do
+        expiryScheduler.cancel(attemptId);
+        boolean queued = false;
+        try {
+            queued = submissionQueue.enqueue(submission);
+            // Written synchronously, nothing written means the expiry closed the attempt first
+            if (!queued && submissionWriter.persist(List.of(submission)) == 0) {
+                throw alreadySubmitted(attemptId);
+            }
+        } finally {
+            if (!queued) {
+                submissionQueue.release(attemptId);
+            }
+        }
+
+        // Detached copy for the response, the managed attempt is left untouched for the writers
+        QuizAttempt result = new QuizAttempt();
+        result.setId(attempt.getId());
+        result.setUser(attempt.getUser());
+        result.setQuiz(quiz);
+        result.setStartTime(attempt.getStartTime());
+        result.setEndTime(now);
+        result.setTimeTakenSeconds(secondsTaken);
+        result.setScore(score);
+        result.setTotalQuestions(attempt.getTotalQuestions());
+        return result;
+    }
+
+    private static RuntimeException alreadySubmitted(Long attemptId) {
+        return new RuntimeException("Quiz attempt " + attemptId + " is already submitted");
+    }
+
+    /**
+     * A deleted quiz keeps its attempts until the purge, but they can no longer be submitted.
+     */
+    private static void requireLiveQuiz(QuizAttempt attempt) {
+        if (attempt.getQuiz().getDeletedAt() != null) {
+            throw new RuntimeException("Quiz not found with id: " + attempt.getQuiz().getId());
+        }
+    }
+
+    /**
+     * Grades the submitted answers (question id -> selected option id) against the cached answer key.
+     */
+    private List<PendingSubmission.GradedResponse> gradeResponses(Long quizId, Map<Long,Long> responses) {
+        AnswerKeyCache.AnswerKey answerKey = answerKeyCache.getAnswerKey(quizId);
+        List<PendingSubmission.GradedResponse> graded = new ArrayList<>(responses.size());
+
+        for (Map.Entry<Long,Long> entry : responses.entrySet()) {
+            Long questionId = entry.getKey();
+            Long selectedOptionId = entry.getValue();
+
+            if (!answerKey.hasQuestion(questionId)) {
+                throw new RuntimeException("Question not found with id: " + questionId);
+            }
+            if (!answerKey.ownsOption(questionId, selectedOptionId)) {
+                throw new RuntimeException("Option not found with id: " + selectedOptionId);
+            }
+            graded.add(new PendingSubmission.GradedResponse(questionId, selectedOptionId,
+                    answerKey.isCorrect(questionId, selectedOptionId)));
+        }
+        return graded;
+    }
+
+    /**
+     * Percentile rank of a completed attempt among all completed attempts of its quiz
+     */
+    public Map<String, Object> getAttemptPercentile(Long attemptId) {
+        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new RuntimeException("Quiz attempt not found with id: " + attemptId));
+        if (attempt.getEndTime() == null) {
+            throw new RuntimeException("Quiz attempt " + attemptId + " is not submitted yet");
+        }
+
+        Long quizId = attempt.getQuiz().getId();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("attemptId", attemptId);
+        result.put("quizId", quizId);
+        result.put("score", attempt.getScore());
+        result.put("totalQuestions", attempt.getTotalQuestions());
+        result.put("percentileRank", quizStatsService.getPercentileRank(quizId, attempt.getScore()));
+        return result;
+    }
+
     public boolean hasTimeLimitExceeded(Long attemptId) {
         QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
                 .orElseThrow(() -> new RuntimeException("Quiz attempt not found with id: " + attemptId));
@@ -121,9 +275,16 @@ public class QuizAttemptService {
 
     @Transactional
     public QuizAttempt autoSubmitExpiredAttempt(Long attemptId) {
-        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+        QuizAttempt attempt = quizAttemptRepository.findByIdForUpdate(attemptId)
                 .orElseThrow(() -> new RuntimeException("Quiz attempt not found with id: " + attemptId));
 
+        expiryScheduler.cancel(attemptId);
+        // Already submitted (by the student or an earlier expiry), keep the recorded score.
+        // A submission still in the write-behind queue closes the attempt with its own score.
+        if (attempt.getEndTime() != null || submissionQueue.isInFlight(attemptId)) {
+            return attempt;
+        }
+
         LocalDateTime now = LocalDateTime.now();
         attempt.setEndTime(now);
 
@@ -133,6 +294,8 @@ public class QuizAttemptService {
 
         // Set score to 0 as time limit was exceeded
         attempt.setScore(0);
+        quizStatsService.recordAttempt(attempt.getQuiz().getId(), 0, secondsTaken);
+        activityCounters.record(ActivityCounters.Event.EXPIRED);
 
         return quizAttemptRepository.save(attempt);
     }
@@ -200,6 +363,8 @@ public class QuizAttemptService {
         List<Response> responses = responseRepository.findByQuizAttemptId(attemptId);
         responseRepository.deleteAll(responses);
         quizAttemptRepository.deleteById(attemptId);
+        optionStatsCounters.removeResponses(responses);
+        quizStatsService.removeAttempt(attempt);
     }
 
 }
@@ -0,0 +1,151 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.repository.QuestionRepository;
+import com.omar.mylearnapp.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through LRU cache of immutable quiz snapshots, bounded by their estimated size in bytes.
+ * Every method that changes a quiz, its questions or its options must call evict.
+ */
+@Component
+public class QuizContentCache {
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Value("${quiz.content-cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    // Access-ordered, so iteration starts with the least recently used snapshot
+    private final LinkedHashMap<Long, QuizSnapshot> snapshots = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    // Bumped by every eviction; a load started before an eviction is not stored
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public Optional<QuizSnapshot> getSnapshot(Long quizId) {
+        long observedGeneration;
+        synchronized (this) {
+            QuizSnapshot cached = snapshots.get(quizId);
+            if (cached != null) {
+                hits++;
+                return Optional.of(cached);
+            }
+            misses++;
+            observedGeneration = generation;
+        }
+
+        Optional<Quiz> quiz = quizRepository.findById(quizId);
+        if (quiz.isEmpty()) {
+            return Optional.empty();
+        }
+        QuizSnapshot snapshot = QuizSnapshot.of(quiz.get(), questionRepository.findWithOptionsByQuizId(quizId));
+
+        synchronized (this) {
+            if (generation == observedGeneration) {
+                store(snapshot);
+            }
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Drops the snapshot of a quiz now and, when called inside a transaction, again once it completes
+     * so that a concurrent read of the uncommitted state cannot stay cached.
+     */
+    public void evict(Long quizId) {
+        if (quizId == null) {
+            return;
+        }
+        remove(quizId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(quizId);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", snapshots.size());
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+
+    private synchronized void remove(Long quizId) {
+        generation++;
+        invalidations++;
+        QuizSnapshot removed = snapshots.remove(quizId);
+        if (removed != null) {
+            totalBytes -= removed.estimatedBytes();
+        }
+    }
+
+    private synchronized void clear() {
+        generation++;
+        invalidations++;
+        snapshots.clear();
+        totalBytes = 0;
+    }
+
+    private void store(QuizSnapshot snapshot) {
+        long bytes = snapshot.estimatedBytes();
+        if (bytes > maxBytes) {
+            return;
+        }
+        QuizSnapshot previous = snapshots.put(snapshot.id(), snapshot);
+        if (previous != null) {
+            totalBytes -= previous.estimatedBytes();
+        }
+        totalBytes += bytes;
+
+        Iterator<QuizSnapshot> eldest = snapshots.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            QuizSnapshot candidate = eldest.next();
+            if (candidate == snapshot) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= candidate.estimatedBytes();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.omar.mylearnapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omar.mylearnapp.model.Option;
+import com.omar.mylearnapp.model.Question;
+import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.model.User;
+import com.omar.mylearnapp.repository.QuizRepository;
+import com.omar.mylearnapp.repository.TopicRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Imports complete quizzes from NDJSON, one quiz per line. The body is read line by line and each
+ * quiz is inserted in batches of quiz.import.batch-size per transaction, so memory stays flat
+ * whatever the size of the file: the persistence context, which open-in-view keeps for the whole
+ * request, is cleared after every batch. A line that cannot be parsed, fails validation or cannot be
+ * inserted is reported with its line number and does not stop the import.
+ */
+@Service
+public class QuizImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizImportService.class);
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${quiz.import.batch-size:100}")
+    private int batchSize;
+
+    @Value("${quiz.import.max-errors:100}")
+    private int maxErrors;
+
+    /**
+     * @param professor owner of every imported quiz, may be null
+     * @return line, import and failure counts, with the first errors by line number
+     */
+    public Map<String, Object> importQuizzes(InputStream ndjson, User professor) {
+        Report report = new Report();
+        // Topic ids checked once per import, not once per quiz
+        Map<Long, Boolean> knownTopics = new HashMap<>();
+        List<Line> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String text;
+            int lineNumber = 0;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.lines++;
+                Quiz quiz;
+                try {
+                    // Same leniency as the JSON endpoints, exports from other systems carry extra fields
+                    quiz = objectMapper.readerFor(Quiz.class)
+                            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                            .readValue(text);
+                } catch (JsonProcessingException e) {
+                    report.fail(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                String invalid = validate(quiz, knownTopics);
+                if (invalid != null) {
+                    report.fail(lineNumber, invalid);
+                    continue;
+                }
+                prepare(quiz, professor);
+                batch.add(new Line(lineNumber, quiz));
+                if (batch.size() >= batchSize) {
+                    insert(batch, report);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the import body", e);
+        }
+        insert(batch, report);
+
+        log.info("Imported {} quizzes from {} lines, {} failed", report.imported, report.lines, report.failed);
+        return report.toMap();
+    }
+
+    private String validate(Quiz quiz, Map<Long, Boolean> knownTopics) {
+        if (quiz == null) {
+            return "Empty quiz";
+        }
+        if (quiz.getTitle() == null || quiz.getTitle().isBlank()) {
+            return "Quiz title is required";
+        }
+        if (quiz.getTopic() != null && quiz.getTopic().getId() != null) {
+            Long topicId = quiz.getTopic().getId();
+            if (!knownTopics.computeIfAbsent(topicId, topicRepository::existsById)) {
+                return "Topic not found with id: " + topicId;
+            }
+        }
+        if (quiz.getQuestions() != null) {
+            for (int i = 0; i < quiz.getQuestions().size(); i++) {
+                Question question = quiz.getQuestions().get(i);
+                if (question == null || question.getText() == null || question.getText().isBlank()) {
+                    return "Question " + (i + 1) + " has no text";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Links the object graph for cascading inserts and drops anything the caller may not set.
+     */
+    private static void prepare(Quiz quiz, User professor) {
+        quiz.setId(null);
+        quiz.setVersion(0);
+        quiz.setAttempts(null);
+        quiz.setProfessor(professor);
+        if (quiz.getQuestions() == null) {
+            return;
+        }
+        for (Question question : quiz.getQuestions()) {
+            question.setId(null);
+            question.setQuiz(quiz);
+            question.setResponses(null);
+            if (question.getOptions() != null) {
+                for (Option option : question.getOptions()) {
+                    option.setId(null);
+                    option.setQuestion(question);
+                    option.setResponses(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts a batch in one transaction. If it fails, its quizzes are retried one per
+     * transaction so only the offending lines are reported. The inserted quizzes are then
+     * detached, they would otherwise pile up in the request's persistence context.
+     */
+    private void insert(List<Line> batch, Report report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        try {
+            transactions.executeWithoutResult(status -> {
+                for (Line line : batch) {
+                    quizRepository.save(line.quiz);
+                }
+            });
+            report.imported += batch.size();
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Import batch of {} quizzes failed, retrying them one by one: {}", batch.size(), e.getMessage());
+        } finally {
+            entityManager.clear();
+        }
+
+        for (Line line : batch) {
+            // Ids handed out by the rolled back transaction must not make the entities look persisted
+            prepare(line.quiz, line.quiz.getProfessor());
+            try {
+                transactions.executeWithoutResult(status -> quizRepository.save(line.quiz));
+                report.imported++;
+            } catch (RuntimeException e) {
+                report.fail(line.number, e.getMessage());
+            } finally {
+                entityManager.clear();
+            }
+        }
+    }
+
+    private record Line(int number, Quiz quiz) {
+    }
+
+    private final class Report {
+        private long lines;
+        private long imported;
+        private long failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void fail(int lineNumber, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", lineNumber);
+                error.put("error", message);
+                errors.add(error);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("lines", lines);
+            result.put("imported", imported);
+            result.put("failed", failed);
+            result.put("errors", errors);
+            return result;
+        }
+    }
+}
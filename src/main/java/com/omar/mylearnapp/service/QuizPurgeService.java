@@ -0,0 +1,171 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.QuizPurgeJob;
+import com.omar.mylearnapp.repository.QuizPurgeJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purges deleted quizzes in the background. Deleting a quiz only tombstones it and records a job;
+ * a single worker then removes its attempts, responses, questions and options in throttled chunks.
+ * Jobs left unfinished by a restart are resumed at startup.
+ */
+@Component
+public class QuizPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizPurgeService.class);
+
+    @Autowired
+    private QuizPurgeJobRepository purgeJobRepository;
+
+    @Autowired
+    private BulkDeletionService bulkDeletionService;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private SubmissionWriteBehindQueue submissionQueue;
+
+    @Value("${quiz.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quiz.purge.chunk-pause-ms:100}")
+    private long chunkPauseMillis;
+
+    @Value("${quiz.purge.drain-timeout-ms:30000}")
+    private long drainTimeoutMillis;
+
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "quiz-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Records the purge of a quiz that was just tombstoned. The job starts once the caller's
+     * transaction commits, so it never sees the quiz before the tombstone.
+     */
+    public QuizPurgeJob schedule(Long quizId) {
+        QuizPurgeJob job = purgeJobRepository.save(new QuizPurgeJob(quizId, LocalDateTime.now()));
+        afterCommit(() -> submit(quizId));
+        return job;
+    }
+
+    public Optional<QuizPurgeJob> getJob(Long quizId) {
+        return purgeJobRepository.findById(quizId);
+    }
+
+    /**
+     * Resubmits the jobs a previous run did not finish, failed ones included.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(20)
+    public void resume() {
+        List<QuizPurgeJob> unfinished = purgeJobRepository.findByStatusIn(
+                EnumSet.of(QuizPurgeJob.Status.PENDING, QuizPurgeJob.Status.RUNNING, QuizPurgeJob.Status.FAILED));
+        for (QuizPurgeJob job : unfinished) {
+            submit(job.getQuizId());
+        }
+        if (!unfinished.isEmpty()) {
+            log.info("Resumed {} quiz purge jobs", unfinished.size());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("scheduled", scheduled.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // An interrupted purge stays RUNNING and is resumed on the next start
+        worker.shutdownNow();
+    }
+
+    void purge(Long quizId) {
+        QuizPurgeJob job = purgeJobRepository.findById(quizId).orElse(null);
+        if (job == null || job.getStatus() == QuizPurgeJob.Status.DONE) {
+            return;
+        }
+        job.setStatus(QuizPurgeJob.Status.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        job.setLastError(null);
+        job = purgeJobRepository.save(job);
+
+        try {
+            // Submissions accepted before the tombstone are written first, not broken by the purge
+            if (!submissionQueue.awaitQuizDrained(quizId, drainTimeoutMillis)) {
+                log.warn("Submissions of quiz {} still queued after {} ms, purging anyway", quizId, drainTimeoutMillis);
+            }
+            Map<String, Long> report = bulkDeletionService.deleteQuiz(quizId, chunkPauseMillis);
+            quizStatsService.deleteStats(quizId);
+            job.setResponsesDeleted(report.get("responses"));
+            job.setAttemptsDeleted(report.get("attempts"));
+            job.setQuestionsDeleted(report.get("questions"));
+            job.setOptionsDeleted(report.get("options"));
+            job.setStatus(QuizPurgeJob.Status.DONE);
+            completed.incrementAndGet();
+            log.info("Purged quiz {}: {}", quizId, report);
+        } catch (InterruptedException e) {
+            // Shutting down, the job stays RUNNING and is resumed on the next start
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            job.setStatus(QuizPurgeJob.Status.FAILED);
+            job.setLastError(e.getMessage());
+            failed.incrementAndGet();
+            log.error("Could not purge quiz {}", quizId, e);
+        }
+        job.setFinishedAt(LocalDateTime.now());
+        purgeJobRepository.save(job);
+    }
+
+    private void submit(Long quizId) {
+        if (!enabled) {
+            return;
+        }
+        scheduled.incrementAndGet();
+        worker.execute(() -> purge(quizId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,16 +1,25 @@
 package com.omar.mylearnapp.service;
 
+import com.omar.mylearnapp.dto.CursorPage;
+import com.omar.mylearnapp.dto.QuizSummary;
 import com.omar.mylearnapp.model.*;
 import com.omar.mylearnapp.repository.*;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
 public class QuizService {
 
+    // Page sizes of the catalog listings. Clients that send neither after nor limit predate paging,
+    // they get the largest page and the next cursor instead of the whole catalog
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private QuizRepository quizRepository;
 
@@ -32,6 +41,27 @@ public class QuizService {
     @Autowired
     private QuizAttemptRepository quizAttemptRepository; // Add this repository
 
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private QuizContentCache quizContentCache;
+
+    @Autowired
+    private BulkDeletionService bulkDeletionService;
+
+    @Autowired
+    private QuizPurgeService quizPurgeService;
+
+    @Autowired
+    private AttemptExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private QuestionOptionStatsRepository optionStatsRepository;
+
+    @Autowired
+    private OptionStatsCounters optionStatsCounters;
+
     public List<Quiz> getAllQuizzes() {
         return quizRepository.findAll();
     }
@@ -40,6 +70,17 @@ public class QuizService {
         return quizRepository.findById(id);
     }
 
+    /**
+     * Loads a quiz for detail views: quiz, topic, professor and questions in one statement, all options in a second one.
+     */
+    @Transactional
+    public Optional<Quiz> getQuizDetail(Long id) {
+        Optional<Quiz> quiz = quizRepository.findDetailById(id);
+        // Initializes the options of the questions already in the persistence context
+        quiz.ifPresent(q -> questionRepository.findWithOptionsByQuizId(q.getId()));
+        return quiz;
+    }
+
     public List<Quiz> getQuizzesByTopic(Long topicId) {
         Topic topic = topicRepository.findById(topicId)
                 .orElseThrow(() -> new RuntimeException("Topic not found with id: " + topicId));
@@ -54,25 +95,78 @@ public class QuizService {
         return quizRepository.findByDifficulty(difficulty);
     }
 
+    public CursorPage<QuizSummary> getQuizzesPage(Long after, Integer limit) {
+        int size = pageSize(after, limit);
+        return CursorPage.of(quizRepository.findSummariesAfter(cursor(after), fetchLimit(size)), size, QuizSummary::getId);
+    }
+
+    public CursorPage<QuizSummary> getQuizzesByTopicPage(Long topicId, Long after, Integer limit) {
+        if (!topicRepository.existsById(topicId)) {
+            throw new RuntimeException("Topic not found with id: " + topicId);
+        }
+        int size = pageSize(after, limit);
+        return CursorPage.of(quizRepository.findSummariesByTopicIdAfter(topicId, cursor(after), fetchLimit(size)), size, QuizSummary::getId);
+    }
+
+    public CursorPage<QuizSummary> getQuizzesByTopicNamePage(String topicName, Long after, Integer limit) {
+        int size = pageSize(after, limit);
+        return CursorPage.of(quizRepository.findSummariesByTopicNameAfter(topicName, cursor(after), fetchLimit(size)), size, QuizSummary::getId);
+    }
+
+    public CursorPage<QuizSummary> getQuizzesByDifficultyPage(String difficulty, Long after, Integer limit) {
+        int size = pageSize(after, limit);
+        return CursorPage.of(quizRepository.findSummariesByDifficultyAfter(difficulty, cursor(after), fetchLimit(size)), size, QuizSummary::getId);
+    }
+
+    public List<QuizSummary> getQuizSummariesByProfessor(Long professorId) {
+        return quizRepository.findSummariesByProfessorId(professorId);
+    }
+
+    /**
+     * Version and owner of a quiz, as [version, professor id], without loading it.
+     */
+    public Optional<Object[]> getQuizVersionAndOwner(Long id) {
+        return quizRepository.findVersionAndProfessorIdById(id).stream().findFirst();
+    }
+
+    /**
+     * Fingerprint of every quiz and topic, changes on any write the application makes that can alter
+     * a catalog listing. Users are left out: their names are only set when they are created, so a
+     * rename made directly in the database shows once the next quiz or topic write changes the tag.
+     */
+    public String getCatalogFingerprint() {
+        Object[] quizzes = quizRepository.findCatalogFingerprint().get(0);
+        Object[] topics = topicRepository.findFingerprint().get(0);
+        return quizzes[0] + "." + quizzes[1] + "." + quizzes[2] + "-" + topics[0] + "." + topics[1] + "." + topics[2];
+    }
+
+    private static long cursor(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    private static int pageSize(Long after, Integer limit) {
+        if (after == null && limit == null) {
+            return MAX_PAGE_SIZE;
+        }
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    // One row more than the page, telling whether there is a next one
+    private static Limit fetchLimit(int size) {
+        return Limit.of(size + 1);
+    }
+
     public List<Quiz> getQuizzesByCategory(String category) {
         return quizRepository.findByCategory(category);
     }
 
 
     public List<Quiz> getQuizzesByProfessor(Long professorId) {
-        List<Quiz> quizzes = quizRepository.findByProfessorId(professorId);
-
-        // Ensure topics are loaded for each quiz
-        quizzes.forEach(quiz -> {
-            if (quiz.getTopic() != null) {
-                // Force loading the topic's properties to make sure they're available
-                Topic topic = quiz.getTopic();
-                topic.getName(); // This forces Hibernate to load the topic
-                topic.getDescription();
-            }
-        });
-
-        return quizzes;
+        // Topic and professor come with the quizzes through the listing entity graph
+        return quizRepository.findByProfessorId(professorId);
     }
 
     @Transactional
@@ -126,71 +220,37 @@ public class QuizService {
             quiz.setTopic(topic);
         }
 
+        contentChanged(quiz);
         return quizRepository.save(quiz);
     }
 
     /**
-     * Delete a quiz with proper handling of all dependencies
+     * Delete a quiz: it is tombstoned at once and its dependencies are purged in the background
+     *
+     * @return the purge job, whose progress is served by {@link #getDeletionJob(Long)}
      */
     @Transactional
-    public void deleteQuiz(Long id) {
-        Quiz quiz = quizRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Quiz not found with id: " + id));
-
-        // Delete all quiz attempts and associated responses first
-        deleteAllQuizAttempts(quiz.getId());
-
-        // Delete all questions and their dependencies
-        if (quiz.getQuestions() != null) {
-            for (Question question : quiz.getQuestions()) {
-                deleteQuestionWithDependencies(question);
-            }
+    public QuizPurgeJob deleteQuiz(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        if (quizRepository.tombstone(id, now) == 0) {
+            throw new RuntimeException("Quiz not found with id: " + id);
         }
 
-        // Now safely delete the quiz
-        quizRepository.delete(quiz);
-    }
-
-    /**
-     * Helper method to delete all attempts for a quiz
-     */
-    @Transactional
-    protected void deleteAllQuizAttempts(Long quizId) {
-        // Find all quiz attempts for this quiz
-        List<QuizAttempt> attempts = quizAttemptRepository.findByQuizId(quizId);
-
-        for (QuizAttempt attempt : attempts) {
-            // Delete all responses for this attempt
-            List<Response> responses = responseRepository.findByQuizAttemptId(attempt.getId());
-            for (Response response : responses) {
-                responseRepository.delete(response);
-            }
-
-            // Delete the attempt itself
-            quizAttemptRepository.delete(attempt);
-        }
-    }
-
-    /**
-     * Helper method to delete a question with all its dependencies
-     */
-    @Transactional
-    protected void deleteQuestionWithDependencies(Question question) {
-        // Delete all responses related to this question
-        List<Response> responses = responseRepository.findByQuestionId(question.getId());
-        for (Response response : responses) {
-            responseRepository.delete(response);
+        // Attempts in progress can no longer be submitted, close them before the expiry or the purge reaches them
+        List<Long> openAttempts = quizAttemptRepository.findOpenIdsByQuizId(id);
+        if (!openAttempts.isEmpty()) {
+            quizAttemptRepository.closeOpenAttempts(id, now);
+            openAttempts.forEach(expiryScheduler::cancel);
         }
 
-        // Delete all options for this question
-        if (question.getOptions() != null) {
-            for (Option option : question.getOptions()) {
-                optionRepository.delete(option);
-            }
-        }
+        QuizPurgeJob job = quizPurgeService.schedule(id);
+        answerKeyCache.evict(id);
+        quizContentCache.evict(id);
+        return job;
+    }
 
-        // Delete the question itself
-        questionRepository.delete(question);
+    public Optional<QuizPurgeJob> getDeletionJob(Long id) {
+        return quizPurgeService.getJob(id);
     }
 
     /**
@@ -230,7 +290,7 @@ public class QuizService {
      * Supprime un quiz si le professeur en est le propriétaire
      */
     @Transactional
-    public void deleteProfessorQuiz(Long quizId, Long professorId) {
+    public QuizPurgeJob deleteProfessorQuiz(Long quizId, Long professorId) {
         Quiz quiz = quizRepository.findById(quizId)
                 .orElseThrow(() -> new RuntimeException("Quiz non trouvé avec l'id: " + quizId));
 
@@ -239,8 +299,7 @@ public class QuizService {
             throw new RuntimeException("Le professeur avec l'id " + professorId + " n'est pas le propriétaire de ce quiz");
         }
 
-        // Use the improved delete method that handles dependencies
-        deleteQuiz(quizId);
+        return deleteQuiz(quizId);
     }
 
     /**
@@ -267,6 +326,7 @@ public class QuizService {
             }
         }
 
+        contentChanged(quiz);
         return savedQuestion;
     }
 
@@ -289,38 +349,78 @@ public class QuizService {
 
         // Mettre à jour les options si fournies
         if (questionDetails.getOptions() != null && !questionDetails.getOptions().isEmpty()) {
-            // Delete existing responses for the options before deleting options
-            for (Option option : question.getOptions()) {
-                List<Response> responses = responseRepository.findAll().stream()
-                        .filter(r -> r.getSelectedOption() != null && r.getSelectedOption().getId().equals(option.getId()))
-                        .toList();
+            question.setOptions(mergeOptions(question, questionDetails.getOptions()));
+        }
 
-                for (Response response : responses) {
-                    responseRepository.delete(response);
-                }
-            }
+        Question savedQuestion = questionRepository.save(question);
+        contentChanged(quiz);
+        return savedQuestion;
+    }
 
-            // Now safely delete the options
+    /**
+     * Diffs the submitted options against the stored ones. An option matched by id, or else by text,
+     * is updated in place and keeps its id, so the responses that selected it survive. Only the
+     * options that disappeared are removed, with their responses and option statistics, in one
+     * indexed DELETE each.
+     */
+    private List<Option> mergeOptions(Question question, List<Option> submitted) {
+        Map<Long, Option> remaining = new LinkedHashMap<>();
+        if (question.getOptions() != null) {
             for (Option option : question.getOptions()) {
-                optionRepository.delete(option);
+                remaining.put(option.getId(), option);
             }
+        }
 
-            // Ajouter les nouvelles options
-            for (Option option : questionDetails.getOptions()) {
-                option.setQuestion(question);
-                optionRepository.save(option);
+        // First pass by id, second pass by text for options sent without their id
+        Option[] kept = new Option[submitted.size()];
+        for (int i = 0; i < submitted.size(); i++) {
+            Long id = submitted.get(i).getId();
+            kept[i] = id == null ? null : remaining.remove(id);
+        }
+        for (int i = 0; i < submitted.size(); i++) {
+            if (kept[i] != null) {
+                continue;
+            }
+            String text = submitted.get(i).getText();
+            Iterator<Option> candidates = remaining.values().iterator();
+            while (candidates.hasNext()) {
+                Option candidate = candidates.next();
+                if (Objects.equals(candidate.getText(), text)) {
+                    kept[i] = candidate;
+                    candidates.remove();
+                    break;
+                }
             }
-            question.setOptions(questionDetails.getOptions());
         }
 
-        return questionRepository.save(question);
+        if (!remaining.isEmpty()) {
+            responseRepository.deleteBySelectedOptionIdIn(remaining.keySet());
+            optionStatsRepository.deleteAllById(remaining.keySet());
+            optionStatsCounters.discardOptions(question.getId(), remaining.keySet());
+            optionRepository.deleteAllByIdInBatch(remaining.keySet());
+        }
+
+        List<Option> merged = new ArrayList<>(submitted.size());
+        for (int i = 0; i < submitted.size(); i++) {
+            Option details = submitted.get(i);
+            if (kept[i] != null) {
+                kept[i].setText(details.getText());
+                kept[i].setCorrect(details.isCorrect());
+                merged.add(kept[i]);
+            } else {
+                // An id from another question must not be taken over
+                details.setId(null);
+                details.setQuestion(question);
+                merged.add(optionRepository.save(details));
+            }
+        }
+        return merged;
     }
 
     /**
      * Supprime une question d'un quiz
      */
-    @Transactional
-    public void deleteQuestion(Long questionId, Long professorId) {
+    public Map<String, Long> deleteQuestion(Long questionId, Long professorId) {
         Question question = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question non trouvée avec l'id: " + questionId));
 
@@ -331,6 +431,20 @@ public class QuizService {
             throw new RuntimeException("Le professeur avec l'id " + professorId + " n'est pas le propriétaire de ce quiz");
         }
 
-        deleteQuestionWithDependencies(question);
+        Map<String, Long> report = bulkDeletionService.deleteQuestion(questionId);
+        // The quiz is not managed by a transaction here, so its version is bumped in the database
+        quizRepository.incrementVersion(quiz.getId());
+        answerKeyCache.evict(quiz.getId());
+        quizContentCache.evict(quiz.getId());
+        return report;
+    }
+
+    /**
+     * Bumps the version of a managed quiz and drops its cached answer key and content snapshot.
+     */
+    private void contentChanged(Quiz quiz) {
+        quiz.setVersion(quiz.getVersion() + 1);
+        answerKeyCache.evict(quiz.getId());
+        quizContentCache.evict(quiz.getId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.Option;
+import com.omar.mylearnapp.model.Question;
+import com.omar.mylearnapp.model.Quiz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable, fully hydrated copy of a quiz definition (quiz, questions and options)
+ * held by the QuizContentCache. Detached from JPA, so it is safe to share between threads.
+ */
+public record QuizSnapshot(Long id,
+                           long version,
+                           String title,
+                           String description,
+                           String difficulty,
+                           String category,
+                           String icon,
+                           String color,
+                           int timeLimit,
+                           Long topicId,
+                           String topicName,
+                           Long professorId,
+                           List<QuestionSnapshot> questions) {
+
+    public QuizSnapshot {
+        questions = List.copyOf(questions);
+    }
+
+    public record QuestionSnapshot(Long id, String text, List<OptionSnapshot> options) {
+        public QuestionSnapshot {
+            options = List.copyOf(options);
+        }
+    }
+
+    public record OptionSnapshot(Long id, String text, boolean correct) {
+    }
+
+    /**
+     * Builds a snapshot from a quiz and its questions, whose options must already be loaded.
+     */
+    public static QuizSnapshot of(Quiz quiz, List<Question> questions) {
+        List<QuestionSnapshot> questionSnapshots = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            List<OptionSnapshot> options = new ArrayList<>();
+            if (question.getOptions() != null) {
+                for (Option option : question.getOptions()) {
+                    options.add(new OptionSnapshot(option.getId(), option.getText(), option.isCorrect()));
+                }
+            }
+            questionSnapshots.add(new QuestionSnapshot(question.getId(), question.getText(), options));
+        }
+
+        return new QuizSnapshot(quiz.getId(), quiz.getVersion(), quiz.getTitle(), quiz.getDescription(), quiz.getDifficulty(),
+                quiz.getCategory(), quiz.getIcon(), quiz.getColor(),
+                quiz.getTimeLimit() != null ? quiz.getTimeLimit() : 0,
+                quiz.getTopic() != null ? quiz.getTopic().getId() : null,
+                quiz.getTopic() != null ? quiz.getTopic().getName() : null,
+                quiz.getProfessor() != null ? quiz.getProfessor().getId() : null,
+                questionSnapshots);
+    }
+
+    public int getQuestionCount() {
+        return questions.size();
+    }
+
+    public Optional<QuestionSnapshot> findQuestion(Long questionId) {
+        return questions.stream().filter(question -> question.id().equals(questionId)).findFirst();
+    }
+
+    /**
+     * Rough heap footprint in bytes, used by the cache to bound its total size.
+     */
+    public long estimatedBytes() {
+        long bytes = 160 + length(title) + length(description) + length(difficulty) + length(category)
+                + length(icon) + length(color) + length(topicName);
+        for (QuestionSnapshot question : questions) {
+            bytes += 64 + length(question.text());
+            for (OptionSnapshot option : question.options()) {
+                bytes += 56 + length(option.text());
+            }
+        }
+        return bytes;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+}
@@ -0,0 +1,232 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.QuizAttempt;
+import com.omar.mylearnapp.model.QuizHistogramBucket;
+import com.omar.mylearnapp.model.QuizStats;
+import com.omar.mylearnapp.repository.QuizHistogramRepository;
+import com.omar.mylearnapp.repository.QuizStatsRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maintains the quiz_stats aggregates and the score and time histograms: a few upserts per
+ * completed attempt, reads in O(1) or O(buckets), and a rebuild from quiz_attempts to repair any drift.
+ */
+@Service
+public class QuizStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizStatsService.class);
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    @Autowired
+    private QuizStatsRepository quizStatsRepository;
+
+    @Autowired
+    private QuizHistogramRepository histogramRepository;
+
+    @Value("${quiz.stats.time-bucket-seconds:30}")
+    private int timeBucketSeconds;
+
+    // The last time bucket is open-ended
+    @Value("${quiz.stats.time-buckets:240}")
+    private int timeBuckets;
+
+    /**
+     * Adds a just-completed attempt to the aggregate of its quiz. Must be called once per attempt,
+     * in the transaction that closes it.
+     */
+    public void recordAttempt(Long quizId, int score, Long timeTakenSeconds) {
+        if (quizId == null) {
+            return;
+        }
+        long timeTaken = timeTakenSeconds != null ? timeTakenSeconds : 0;
+        quizStatsRepository.recordAttempt(quizId, score, timeTaken);
+        histogramRepository.addToBucket(quizId, QuizHistogramBucket.SCORE, score, 1);
+        histogramRepository.addToBucket(quizId, QuizHistogramBucket.TIME, timeBucket(timeTaken), 1);
+    }
+
+    /**
+     * Takes a deleted attempt back out of the aggregate. Open attempts were never counted.
+     */
+    public void removeAttempt(QuizAttempt attempt) {
+        if (attempt.getEndTime() == null || attempt.getQuiz() == null) {
+            return;
+        }
+        removeAttempt(attempt.getQuiz().getId(), attempt.getScore(), attempt.getTimeTakenSeconds());
+    }
+
+    /**
+     * Swaps the previous result of a resubmitted attempt for its new one.
+     */
+    public void replaceAttempt(Long quizId, int previousScore, Long previousTimeTakenSeconds, int score, Long timeTakenSeconds) {
+        if (quizId == null) {
+            return;
+        }
+        removeAttempt(quizId, previousScore, previousTimeTakenSeconds);
+        recordAttempt(quizId, score, timeTakenSeconds);
+    }
+
+    private void removeAttempt(Long quizId, int score, Long timeTakenSeconds) {
+        long timeTaken = timeTakenSeconds != null ? timeTakenSeconds : 0;
+        quizStatsRepository.removeAttempt(quizId, score, timeTaken);
+        histogramRepository.addToBucket(quizId, QuizHistogramBucket.SCORE, score, -1);
+        histogramRepository.addToBucket(quizId, QuizHistogramBucket.TIME, timeBucket(timeTaken), -1);
+    }
+
+    public void deleteStats(Long quizId) {
+        quizStatsRepository.deleteByQuizId(quizId);
+        histogramRepository.deleteByQuizId(quizId);
+    }
+
+    /**
+     * @return the aggregate of a quiz, empty aggregate when it has no completed attempt yet
+     */
+    public QuizStats getStats(Long quizId) {
+        Optional<QuizStats> stats = quizStatsRepository.findById(quizId);
+        if (stats.isPresent()) {
+            return stats.get();
+        }
+        QuizStats empty = new QuizStats();
+        empty.setQuizId(quizId);
+        return empty;
+    }
+
+    /**
+     * Score and time-taken histograms of a quiz with their p50/p90/p99, computed from the buckets.
+     */
+    public Map<String, Object> getDistribution(Long quizId) {
+        List<QuizHistogramBucket> scores = histogramRepository.findByQuizIdAndTypeOrderByBucket(quizId, QuizHistogramBucket.SCORE);
+        List<QuizHistogramBucket> times = histogramRepository.findByQuizIdAndTypeOrderByBucket(quizId, QuizHistogramBucket.TIME);
+
+        List<Map<String, Object>> scoreHistogram = new ArrayList<>();
+        for (QuizHistogramBucket bucket : scores) {
+            if (bucket.getAttemptCount() > 0) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("score", bucket.getBucket());
+                row.put("count", bucket.getAttemptCount());
+                scoreHistogram.add(row);
+            }
+        }
+        List<Map<String, Object>> timeHistogram = new ArrayList<>();
+        for (QuizHistogramBucket bucket : times) {
+            if (bucket.getAttemptCount() > 0) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("fromSeconds", (long) bucket.getBucket() * timeBucketSeconds);
+                // null for the open-ended last bucket
+                row.put("toSeconds", bucket.getBucket() >= timeBuckets - 1 ? null : (long) (bucket.getBucket() + 1) * timeBucketSeconds);
+                row.put("count", bucket.getAttemptCount());
+                timeHistogram.add(row);
+            }
+        }
+
+        Map<String, Object> scorePercentiles = new LinkedHashMap<>();
+        Map<String, Object> timePercentiles = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            String key = "p" + (int) percentile;
+            scorePercentiles.put(key, percentileBucket(scores, percentile));
+            Integer timeBucket = percentileBucket(times, percentile);
+            // Upper bound of the bucket, so "p90 <= x seconds"
+            timePercentiles.put(key, timeBucket == null ? null : (long) (timeBucket + 1) * timeBucketSeconds);
+        }
+
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("quizId", quizId);
+        distribution.put("attempts", total(scores));
+        distribution.put("scoreHistogram", scoreHistogram);
+        distribution.put("scorePercentiles", scorePercentiles);
+        distribution.put("timeBucketSeconds", timeBucketSeconds);
+        distribution.put("timeHistogram", timeHistogram);
+        distribution.put("timePercentiles", timePercentiles);
+        return distribution;
+    }
+
+    /**
+     * Percentile rank of a score among the completed attempts of a quiz: the share of attempts
+     * below it plus half of those with the same score, in percent. Null when there is no attempt yet.
+     */
+    public Double getPercentileRank(Long quizId, int score) {
+        List<QuizHistogramBucket> scores = histogramRepository.findByQuizIdAndTypeOrderByBucket(quizId, QuizHistogramBucket.SCORE);
+        long total = total(scores);
+        if (total <= 0) {
+            return null;
+        }
+        long below = 0;
+        long equal = 0;
+        for (QuizHistogramBucket bucket : scores) {
+            if (bucket.getBucket() < score) {
+                below += bucket.getAttemptCount();
+            } else if (bucket.getBucket() == score) {
+                equal += bucket.getAttemptCount();
+            }
+        }
+        return (below + equal / 2.0) / total * 100;
+    }
+
+    /**
+     * Recomputes every aggregate from the raw attempts.
+     *
+     * @return the number of quizzes with statistics
+     */
+    @Transactional
+    public int rebuildAll() {
+        quizStatsRepository.deleteAllInBatch();
+        histogramRepository.deleteAllInBatch();
+        int rows = quizStatsRepository.insertAllFromAttempts();
+        histogramRepository.insertScoreBucketsFromAttempts(null);
+        histogramRepository.insertTimeBucketsFromAttempts(null, timeBucketSeconds, timeBuckets - 1);
+        log.info("Rebuilt quiz statistics for {} quizzes", rows);
+        return rows;
+    }
+
+    @Transactional
+    public int rebuild(Long quizId) {
+        deleteStats(quizId);
+        histogramRepository.insertScoreBucketsFromAttempts(quizId);
+        histogramRepository.insertTimeBucketsFromAttempts(quizId, timeBucketSeconds, timeBuckets - 1);
+        return quizStatsRepository.insertFromAttempts(quizId);
+    }
+
+    private int timeBucket(long timeTakenSeconds) {
+        return (int) Math.min(Math.max(0, timeTakenSeconds) / timeBucketSeconds, timeBuckets - 1);
+    }
+
+    private static long total(List<QuizHistogramBucket> buckets) {
+        return buckets.stream().mapToLong(QuizHistogramBucket::getAttemptCount).sum();
+    }
+
+    // Nearest-rank percentile over buckets sorted by value
+    private static Integer percentileBucket(List<QuizHistogramBucket> buckets, double percentile) {
+        long total = total(buckets);
+        if (total <= 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (QuizHistogramBucket bucket : buckets) {
+            seen += bucket.getAttemptCount();
+            if (seen >= rank) {
+                return bucket.getBucket();
+            }
+        }
+        return buckets.get(buckets.size() - 1).getBucket();
+    }
+
+    // Called on the bean itself, so it needs its own transaction rather than rebuildAll's
+    @Scheduled(cron = "${quiz.stats.rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public void scheduledRebuild() {
+        rebuildAll();
+    }
+}
@@ -0,0 +1,83 @@
+package com.omar.mylearnapp.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Picks the question objects out of a quiz JSON document while its text is still arriving.
+ * Fragments are scanned once, keeping track of strings and nesting, and every element of the
+ * root "questions" array is handed over as soon as its closing brace is read. Text around the
+ * root object, such as a markdown fence, is ignored.
+ */
+class QuizStreamParser {
+
+    private final Consumer<String> onQuestion;
+    private final StringBuilder text = new StringBuilder();
+
+    private int position;
+    // 0 outside the root object
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private int stringStart;
+    private String lastString;
+    // depth of the "questions" array while it is open, -1 otherwise
+    private int questionsDepth = -1;
+    private int questionStart = -1;
+
+    QuizStreamParser(Consumer<String> onQuestion) {
+        this.onQuestion = onQuestion;
+    }
+
+    void feed(String fragment) {
+        text.append(fragment);
+        for (; position < text.length(); position++) {
+            char c = text.charAt(position);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    lastString = text.substring(stringStart + 1, position);
+                }
+                continue;
+            }
+            if (depth == 0 && c != '{') {
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    stringStart = position;
+                }
+                case '{', '[' -> {
+                    depth++;
+                    if (c == '[' && depth == 2 && "questions".equals(lastString)) {
+                        questionsDepth = depth;
+                    } else if (c == '{' && questionsDepth > 0 && depth == questionsDepth + 1) {
+                        questionStart = position;
+                    }
+                }
+                case '}', ']' -> {
+                    if (c == '}' && questionStart >= 0 && depth == questionsDepth + 1) {
+                        onQuestion.accept(text.substring(questionStart, position + 1));
+                        questionStart = -1;
+                    } else if (c == ']' && depth == questionsDepth) {
+                        questionsDepth = -1;
+                    }
+                    depth--;
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Everything fed so far.
+     */
+    String getText() {
+        return text.toString();
+    }
+}
@@ -1,23 +1,30 @@
 package com.omar.mylearnapp.service;
 
+import com.omar.mylearnapp.dto.MissedQuestionReport;
 import com.omar.mylearnapp.model.Question;
-import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.model.QuizStats;
 import com.omar.mylearnapp.repository.QuestionRepository;
 import com.omar.mylearnapp.repository.QuizAttemptRepository;
 import com.omar.mylearnapp.repository.QuizRepository;
 import com.omar.mylearnapp.repository.ResponseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class StatisticsService {
 
+    // Bounds of the report served by /missed-questions
+    public static final int DEFAULT_MISSED_LIMIT = 10;
+    public static final int MAX_MISSED_LIMIT = 100;
+
     @Autowired
     private QuizRepository quizRepository;
 
@@ -30,6 +37,42 @@ public class StatisticsService {
     @Autowired
     private ResponseRepository responseRepository;
 
+    @Autowired
+    private SubmissionWriteBehindQueue submissionQueue;
+
+    @Autowired
+    private AttemptExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private AttemptTimerService attemptTimerService;
+
+    @Autowired
+    private QuizContentCache quizContentCache;
+
+    @Autowired
+    private PlayerViewCache playerViewCache;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private OptionStatsCounters optionStatsCounters;
+
+    @Autowired
+    private ActivityCounters activityCounters;
+
+    @Autowired
+    private QuizPurgeService quizPurgeService;
+
+    @Autowired
+    private GeminiHttpClient geminiHttpClient;
+
+    @Autowired
+    private AiQuizJobService aiQuizJobService;
+
+    @Autowired
+    private GeneratedQuizCache generatedQuizCache;
+
     /**
      * Get statistics for a specific quiz
      */
@@ -37,41 +80,63 @@ public class StatisticsService {
         Map<String, Object> statistics = new HashMap<>();
 
         // Basic quiz info
-        Quiz quiz = quizRepository.findById(quizId)
+        QuizSnapshot quiz = quizContentCache.getSnapshot(quizId)
                 .orElseThrow(() -> new RuntimeException("Quiz not found with id: " + quizId));
-        statistics.put("quizId", quiz.getId());
-        statistics.put("quizTitle", quiz.getTitle());
-
-        // Attempt statistics
-        long totalAttempts = quizAttemptRepository.countAttemptsByQuizId(quizId);
-        Double averageScore = quizAttemptRepository.getAverageScoreByQuizId(quizId);
-        Double averageTime = quizAttemptRepository.getAverageTimeByQuizId(quizId);
-
-        statistics.put("totalAttempts", totalAttempts);
-        statistics.put("averageScore", averageScore != null ? averageScore : 0);
-        statistics.put("averageTimeSeconds", averageTime != null ? averageTime : 0);
-
-        // Most missed questions
-        List<Map<String, Object>> mostMissedQuestions = responseRepository.findMostMissedQuestionsByQuizId(quizId);
-
-        // Enhance with question text
-        List<Map<String, Object>> enhancedMissedQuestions = mostMissedQuestions.stream()
-                .map(item -> {
-                    Long questionId = ((Number) item.get("questionId")).longValue();
-                    Question question = questionRepository.findById(questionId).orElse(null);
+        statistics.put("quizId", quiz.id());
+        statistics.put("quizTitle", quiz.title());
+
+        // Attempt statistics, read from the running aggregate of completed attempts
+        QuizStats stats = quizStatsService.getStats(quizId);
+        statistics.put("totalAttempts", stats.getAttemptCount());
+        statistics.put("averageScore", stats.getAverageScore());
+        statistics.put("averageTimeSeconds", stats.getAverageTimeSeconds());
+        statistics.put("scoreStdDev", stats.getScoreStandardDeviation());
+        statistics.put("minScore", stats.getMinScore());
+        statistics.put("maxScore", stats.getMaxScore());
+
+        // Most missed questions, every question missed at least once, in the shape this endpoint always had
+        List<Map<String, Object>> mostMissedQuestions = new ArrayList<>();
+        for (MissedQuestionReport row : responseRepository.findMissedQuestionReport(quizId, Limit.unlimited())) {
+            Map<String, Object> missed = new HashMap<>();
+            missed.put("questionId", row.getQuestionId());
+            missed.put("count", row.getMissCount());
+            missed.put("questionText", row.getQuestionText());
+            mostMissedQuestions.add(missed);
+        }
+        statistics.put("mostMissedQuestions", mostMissedQuestions);
 
-                    Map<String, Object> enhanced = new HashMap<>(item);
-                    if (question != null) {
-                        enhanced.put("questionText", question.getText());
-                    }
-
-                    return enhanced;
-                })
-                .collect(Collectors.toList());
+        return statistics;
+    }
 
-        statistics.put("mostMissedQuestions", enhancedMissedQuestions);
+    /**
+     * Get the score and time-taken distributions of a quiz, with percentiles
+     */
+    public Map<String, Object> getQuizDistribution(Long quizId) {
+        QuizSnapshot quiz = quizContentCache.getSnapshot(quizId)
+                .orElseThrow(() -> new RuntimeException("Quiz not found with id: " + quizId));
+        Map<String, Object> distribution = quizStatsService.getDistribution(quizId);
+        distribution.put("totalQuestions", quiz.getQuestionCount());
+        return distribution;
+    }
 
-        return statistics;
+    /**
+     * Get the questions of a quiz with the most wrong answers, optionally with the wrong options picked
+     */
+    public List<MissedQuestionReport> getMostMissedQuestions(Long quizId, Integer limit, boolean includeOptions) {
+        int size = limit == null ? DEFAULT_MISSED_LIMIT : Math.max(1, Math.min(limit, MAX_MISSED_LIMIT));
+        List<MissedQuestionReport> report = responseRepository.findMissedQuestionReport(quizId, Limit.of(size));
+
+        if (includeOptions && !report.isEmpty()) {
+            Map<Long, MissedQuestionReport> byQuestion = new HashMap<>();
+            for (MissedQuestionReport row : report) {
+                row.setOptions(new ArrayList<>());
+                byQuestion.put(row.getQuestionId(), row);
+            }
+            for (MissedQuestionReport.OptionMisses option : responseRepository.findMissedOptionCounts(byQuestion.keySet())) {
+                byQuestion.get(option.getQuestionId()).getOptions().add(option);
+            }
+        }
+        return report;
     }
 
     /**
@@ -86,16 +151,37 @@ public class StatisticsService {
         statistics.put("questionId", question.getId());
         statistics.put("questionText", question.getText());
 
-        // Response statistics
-        long totalResponses = responseRepository.countTotalResponsesByQuestionId(questionId);
-        long correctResponses = responseRepository.countCorrectResponsesByQuestionId(questionId);
+        // Response statistics from the option counters, live without scanning responses
+        Map<Long, long[]> counts = optionStatsCounters.getCounts(questionId);
+        List<QuizSnapshot.OptionSnapshot> options = question.getQuiz() == null ? List.of()
+                : quizContentCache.getSnapshot(question.getQuiz().getId())
+                        .flatMap(quiz -> quiz.findQuestion(questionId))
+                        .map(QuizSnapshot.QuestionSnapshot::options)
+                        .orElse(List.of());
+
+        long totalResponses = 0;
+        long correctResponses = 0;
+        List<Map<String, Object>> optionCounts = new ArrayList<>();
+        // Counts left behind by deleted options are ignored, like their deleted responses
+        for (QuizSnapshot.OptionSnapshot option : options) {
+            long[] count = counts.get(option.id());
+            if (count == null || count[0] <= 0) {
+                continue;
+            }
+            totalResponses += count[0];
+            correctResponses += count[1];
+            Map<String, Object> optionCount = new LinkedHashMap<>();
+            optionCount.put("optionId", option.id());
+            optionCount.put("optionText", option.text());
+            optionCount.put("count", count[0]);
+            optionCounts.add(optionCount);
+        }
 
         statistics.put("totalResponses", totalResponses);
         statistics.put("correctResponses", correctResponses);
         statistics.put("correctPercentage", totalResponses > 0 ? (double) correctResponses / totalResponses * 100 : 0);
 
         // Option distribution
-        List<Map<String, Object>> optionCounts = responseRepository.countResponsesByOptionForQuestion(questionId);
         statistics.put("optionDistribution", optionCounts);
 
         return statistics;
@@ -108,18 +194,48 @@ public class StatisticsService {
         Map<String, Object> statistics = new HashMap<>();
 
         // Total counts
-        long totalQuizzes = quizRepository.count();
+        long totalQuizzes = quizRepository.countQuizzes();
         long totalAttempts = quizAttemptRepository.count();
 
         statistics.put("totalQuizzes", totalQuizzes);
         statistics.put("totalAttempts", totalAttempts);
 
-        // Recent activity (last 7 days)
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
-        long recentAttempts = quizAttemptRepository.findByStartTimeBetween(oneWeekAgo, LocalDateTime.now()).size();
+        // Recent activity (last 7 days), from the in-memory activity counters
+        statistics.put("recentAttempts", activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofDays(7)));
+        statistics.put("activity", activityCounters.snapshot());
+
+        return statistics;
+    }
 
-        statistics.put("recentAttempts", recentAttempts);
+    /**
+     * Recompute the quiz_stats aggregates from the raw attempts, for one quiz or all of them
+     */
+    public Map<String, Object> rebuildQuizStats(Long quizId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (quizId != null) {
+            result.put("quizId", quizId);
+            result.put("rebuilt", quizStatsService.rebuild(quizId));
+        } else {
+            result.put("rebuilt", quizStatsService.rebuildAll());
+        }
+        return result;
+    }
 
+    /**
+     * Get in-process runtime metrics (queues, caches, pools)
+     */
+    public Map<String, Object> getRuntimeStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("submissionQueue", submissionQueue.getStats());
+        statistics.put("attemptExpiry", expiryScheduler.getStats());
+        statistics.put("timerStreams", attemptTimerService.getOpenStreams());
+        statistics.put("quizContentCache", quizContentCache.getStats());
+        statistics.put("playerViews", playerViewCache.getStats());
+        statistics.put("optionCounters", optionStatsCounters.getStats());
+        statistics.put("quizPurge", quizPurgeService.getStats());
+        statistics.put("geminiHttp", geminiHttpClient.getStats());
+        statistics.put("aiQuizJobs", aiQuizJobService.getStats());
+        statistics.put("generatedQuizCache", generatedQuizCache.getStats());
         return statistics;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,374 @@
+package com.omar.mylearnapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded write-behind queue for graded submissions.
+ * Every entry is appended to an fsync'ed journal before it is queued, so submissions accepted
+ * before a crash are replayed on the next start. A small pool of writers drains the queue in batches.
+ * Entries that still fail when written one by one are moved to a dead-letter file, so that one bad
+ * submission neither blocks the journal truncation nor the next start.
+ */
+@Component
+public class SubmissionWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionWriteBehindQueue.class);
+
+    @Autowired
+    private SubmissionWriter submissionWriter;
+
+    @Value("${quiz.submit.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${quiz.submit.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${quiz.submit.write-behind.writers:2}")
+    private int writerCount;
+
+    @Value("${quiz.submit.write-behind.batch-size:100}")
+    private int batchSize;
+
+    @Value("${quiz.submit.write-behind.offer-timeout-ms:200}")
+    private long offerTimeoutMs;
+
+    @Value("${quiz.submit.write-behind.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+
+    @Value("${quiz.submit.write-behind.journal:data/submission-journal.ndjson}")
+    private String journalPath;
+
+    @Value("${quiz.submit.write-behind.dead-letter:data/submission-dead-letter.ndjson}")
+    private String deadLetterPath;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final Object journalLock = new Object();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Queued or being written, by quiz, so a purge can wait for the submissions of its quiz
+    private final Map<Long, AtomicInteger> inFlightByQuiz = new ConcurrentHashMap<>();
+    // Attempts whose submission is graded but not written yet, a second submit of them is refused
+    private final Set<Long> inFlightAttempts = ConcurrentHashMap.newKeySet();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private BlockingQueue<PendingSubmission> queue;
+    private ExecutorService writers;
+    private FileOutputStream journal;
+    private volatile boolean accepting;
+    // Set when a failed entry could not be dead-lettered, the journal is then kept for the next replay
+    private volatile boolean journalHasLostEntries;
+
+    /**
+     * Replays the journal before accepting new submissions, until then callers write synchronously.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+
+        Path journalFile = Paths.get(journalPath);
+        if (journalFile.getParent() != null) {
+            Files.createDirectories(journalFile.getParent());
+        }
+        replayJournal(journalFile);
+        journal = new FileOutputStream(journalFile.toFile(), true);
+
+        writers = Executors.newFixedThreadPool(writerCount, runnable -> {
+            Thread thread = new Thread(runnable, "submission-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        accepting = true;
+        for (int i = 0; i < writerCount; i++) {
+            writers.submit(this::drainLoop);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves the attempt for one submission, until its writer has run or {@link #release} is called.
+     *
+     * @return false when a submission of the attempt is already queued or being written
+     */
+    public boolean claim(Long attemptId) {
+        return inFlightAttempts.add(attemptId);
+    }
+
+    public void release(Long attemptId) {
+        inFlightAttempts.remove(attemptId);
+    }
+
+    public boolean isInFlight(Long attemptId) {
+        return inFlightAttempts.contains(attemptId);
+    }
+
+    /**
+     * Journals and queues a graded submission.
+     *
+     * @return false when the queue stayed full for the offer timeout, the caller must then write synchronously
+     */
+    public boolean enqueue(PendingSubmission submission) {
+        if (!accepting) {
+            return false;
+        }
+        inFlight.incrementAndGet();
+        quizInFlight(submission.quizId()).incrementAndGet();
+        try {
+            appendToJournal(submission);
+            if (queue.offer(submission, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (UncheckedIOException e) {
+            log.error("Submission journal unavailable, writing attempt {} synchronously", submission.attemptId(), e);
+        }
+        // A journal entry left behind is harmless: replaying an already closed attempt is a no-op
+        inFlight.decrementAndGet();
+        quizInFlight(submission.quizId()).decrementAndGet();
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Waits until no submission of the quiz is left in the queue or being written.
+     *
+     * @return false when some were still pending after the timeout
+     */
+    public boolean awaitQuizDrained(Long quizId, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        AtomicInteger pending;
+        while ((pending = inFlightByQuiz.get(quizId)) != null && pending.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("depth", queue != null ? queue.size() : 0);
+        stats.put("capacity", capacity);
+        stats.put("inFlight", inFlight.get());
+        stats.put("persisted", persisted.get());
+        stats.put("skipped", skipped.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    /**
+     * Stops accepting new submissions and lets the writers flush what is already queued.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writers == null) {
+            return;
+        }
+        accepting = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+            log.warn("Write-behind queue not drained before shutdown, {} submissions left in the journal", inFlight.get());
+        }
+        // Anything the writers could not take is still in the journal and replayed on the next start
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Could not close submission journal", e);
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingSubmission> batch = new ArrayList<>(batchSize);
+        while (true) {
+            PendingSubmission next;
+            try {
+                next = queue.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) {
+                if (!accepting) {
+                    // Shutdown requested and nothing left to flush
+                    return;
+                }
+                continue;
+            }
+            batch.add(next);
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingSubmission> batch) {
+        persistIsolated(batch);
+        for (PendingSubmission submission : batch) {
+            quizInFlight(submission.quizId()).decrementAndGet();
+            release(submission.attemptId());
+        }
+        if (inFlight.addAndGet(-batch.size()) == 0) {
+            truncateJournal();
+        }
+    }
+
+    private void persistIsolated(List<PendingSubmission> batch) {
+        try {
+            counted(batch.size(), submissionWriter.persist(batch));
+        } catch (RuntimeException e) {
+            // Isolate the entries that cannot be written, the rest of the batch still goes through
+            for (PendingSubmission submission : batch) {
+                try {
+                    counted(1, submissionWriter.persist(List.of(submission)));
+                } catch (RuntimeException single) {
+                    failed.incrementAndGet();
+                    log.error("Could not persist submission of attempt {}, moving it to the dead-letter file",
+                            submission.attemptId(), single);
+                    deadLetter(submission);
+                }
+            }
+        }
+    }
+
+    // Entries of attempts closed in the meantime are not written, the writer logs each of them
+    private void counted(int entries, int written) {
+        persisted.addAndGet(written);
+        skipped.addAndGet(entries - written);
+    }
+
+    private AtomicInteger quizInFlight(Long quizId) {
+        return inFlightByQuiz.computeIfAbsent(quizId, id -> new AtomicInteger());
+    }
+
+    private void appendToJournal(PendingSubmission submission) {
+        try {
+            byte[] line = (objectMapper.writeValueAsString(submission) + "\n").getBytes(StandardCharsets.UTF_8);
+            synchronized (journalLock) {
+                journal.write(line);
+                journal.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal submission of attempt " + submission.attemptId(), e);
+        }
+    }
+
+    private void truncateJournal() {
+        synchronized (journalLock) {
+            // Failed entries are in the dead-letter file, unless that write failed too
+            if (inFlight.get() != 0 || journalHasLostEntries) {
+                return;
+            }
+            try {
+                journal.getChannel().truncate(0);
+            } catch (IOException e) {
+                log.warn("Could not truncate submission journal", e);
+            }
+        }
+    }
+
+    private void replayJournal(Path journalFile) throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        List<PendingSubmission> pending = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    pending.add(objectMapper.readValue(line, PendingSubmission.class));
+                } catch (IOException e) {
+                    // Typically the last line, cut short by a crash
+                    failed.incrementAndGet();
+                    log.error("Unreadable journal entry, moving it to the dead-letter file: {}", line, e);
+                    deadLetter(line);
+                }
+            }
+        }
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            persistIsolated(pending.subList(from, Math.min(from + batchSize, pending.size())));
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replayed {} journaled submissions", pending.size());
+        }
+        if (!journalHasLostEntries) {
+            Files.write(journalFile, new byte[0]);
+        }
+    }
+
+    private void deadLetter(PendingSubmission submission) {
+        try {
+            deadLetter(objectMapper.writeValueAsString(submission));
+        } catch (IOException e) {
+            journalHasLostEntries = true;
+            log.error("Could not dead-letter submission of attempt {}", submission.attemptId(), e);
+        }
+    }
+
+    private void deadLetter(String line) {
+        try {
+            Path deadLetterFile = Paths.get(deadLetterPath);
+            if (deadLetterFile.getParent() != null) {
+                Files.createDirectories(deadLetterFile.getParent());
+            }
+            synchronized (journalLock) {
+                Files.writeString(deadLetterFile, line + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            }
+        } catch (IOException e) {
+            journalHasLostEntries = true;
+            log.error("Could not write to the dead-letter file, keeping the journal: {}", line, e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.QuizAttempt;
+import com.omar.mylearnapp.model.Response;
+import com.omar.mylearnapp.repository.OptionRepository;
+import com.omar.mylearnapp.repository.QuestionRepository;
+import com.omar.mylearnapp.repository.QuizAttemptRepository;
+import com.omar.mylearnapp.repository.ResponseRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Persists batches of graded submissions drained from the write-behind queue.
+ */
+@Service
+public class SubmissionWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionWriter.class);
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private OptionStatsCounters optionStatsCounters;
+
+    @Autowired
+    private ActivityCounters activityCounters;
+
+    /**
+     * Writes the batch in one transaction. Attempts that are already closed are skipped and logged,
+     * which makes replaying the journal after a crash idempotent.
+     *
+     * @return the number of attempts written
+     */
+    @Transactional
+    public int persist(List<PendingSubmission> submissions) {
+        List<Long> attemptIds = submissions.stream().map(PendingSubmission::attemptId).toList();
+        Map<Long, QuizAttempt> attempts = quizAttemptRepository.findAllByIdForUpdate(attemptIds).stream()
+                .collect(Collectors.toMap(QuizAttempt::getId, Function.identity()));
+
+        List<QuizAttempt> written = new ArrayList<>();
+        List<Response> responses = new ArrayList<>();
+
+        for (PendingSubmission submission : submissions) {
+            QuizAttempt attempt = attempts.get(submission.attemptId());
+            if (attempt == null || attempt.getEndTime() != null) {
+                log.warn("Skipping submission of attempt {} scored {}: attempt {}", submission.attemptId(),
+                        submission.score(), attempt == null ? "not found" : "already closed");
+                continue;
+            }
+
+            attempt.setEndTime(submission.endTime());
+            attempt.setTimeTakenSeconds(submission.timeTakenSeconds());
+            attempt.setScore(submission.score());
+            quizStatsService.recordAttempt(submission.quizId(), submission.score(), submission.timeTakenSeconds());
+
+            for (PendingSubmission.GradedResponse graded : submission.responses()) {
+                Response response = new Response();
+                response.setQuizAttempt(attempt);
+                response.setQuestion(questionRepository.getReferenceById(graded.questionId()));
+                response.setSelectedOption(optionRepository.getReferenceById(graded.optionId()));
+                response.setCorrect(graded.correct());
+                responses.add(response);
+            }
+            optionStatsCounters.recordResponses(submission.responses());
+            activityCounters.record(ActivityCounters.Event.SUBMITTED);
+            written.add(attempt);
+        }
+
+        responseRepository.saveAll(responses);
+        quizAttemptRepository.saveAll(written);
+        return written.size();
+    }
+}
@@ -6,8 +6,12 @@ import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class TopicService {
@@ -22,6 +26,18 @@ public class TopicService {
         return topicRepository.findById(id);
     }
 
+    public Optional<Long> getTopicVersion(Long id) {
+        return topicRepository.findVersionById(id);
+    }
+
+    /**
+     * Fingerprint of every topic, changes whenever a topic is created, updated or deleted.
+     */
+    public String getTopicsFingerprint() {
+        Object[] row = topicRepository.findFingerprint().get(0);
+        return row[0] + "." + row[1] + "." + row[2];
+    }
+
     public Optional<Topic> getTopicByName(String name) {
         return topicRepository.findByName(name);
     }
@@ -41,6 +57,7 @@ public class TopicService {
                 .orElseThrow(() -> new RuntimeException("Topic not found with id: " + id));
         topic.setName(topic.getName());
         topic.setDescription(topic.getDescription());
+        topic.setVersion(topic.getVersion() + 1);
 
         return topicRepository.save(topic);
 
@@ -61,6 +78,31 @@ public class TopicService {
         return topicRepository.findByName(name).isPresent();
     }
 
+    /**
+     * Topics of a batch whose name is already taken, by an existing topic or by an earlier topic
+     * of the batch, found with a single query. Names are compared ignoring case like the column collation.
+     */
+    public List<Topic> findConflictingTopics(List<Topic> topics) {
+        List<String> names = topics.stream().map(Topic::getName).filter(Objects::nonNull).distinct().toList();
+        Set<String> taken = new HashSet<>();
+        if (!names.isEmpty()) {
+            for (String name : topicRepository.findNamesIn(names)) {
+                taken.add(name.toLowerCase());
+            }
+        }
+
+        List<Topic> conflicts = new ArrayList<>();
+        for (Topic topic : topics) {
+            if (topic.getName() != null && !taken.add(topic.getName().toLowerCase())) {
+                conflicts.add(topic);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Inserts the topics in JDBC batches, their ids come from topic_seq
+     */
     @Transactional
     public List<Topic> createMultipleTopics(List<Topic> topics) {
         return topicRepository.saveAll(topics);
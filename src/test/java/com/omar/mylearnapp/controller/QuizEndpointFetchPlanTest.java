@@ -0,0 +1,148 @@
+package com.omar.mylearnapp.controller;
+
+import com.omar.mylearnapp.model.*;
+import com.omar.mylearnapp.repository.QuizRepository;
+import com.omar.mylearnapp.repository.TopicRepository;
+import com.omar.mylearnapp.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement counts of the catalog and detail endpoints, measured through the whole request path:
+ * controller, service, open-in-view session and JSON rendering.
+ */
+@SpringBootTest(properties = {
+        "gemini.api.key=test-key",
+        "gemini.model.id=test-model",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QuizEndpointFetchPlanTest {
+
+    private static final int QUIZ_COUNT = 3;
+    private static final int QUESTIONS_PER_QUIZ = 4;
+    private static final int OPTIONS_PER_QUESTION = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long quizId;
+
+    @BeforeAll
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User professor = userRepository.save(new User("clerk_endpoint_prof", "endpoint@test.com", "Ada", "Lovelace", "professeur"));
+            userRepository.save(new User("clerk_other_prof", "other@test.com", "Alan", "Turing", "professeur"));
+            for (int i = 0; i < QUIZ_COUNT; i++) {
+                // Each quiz gets its own topic so a lazy or secondary topic load would show up per row
+                Topic topic = topicRepository.save(new Topic("Endpoint topic " + i, "Description " + i));
+                Quiz quiz = new Quiz("Quiz " + i, "Description", "Easy", "icon", "blue", "Science", 600, topic, professor);
+                List<Question> questions = new ArrayList<>();
+                for (int j = 0; j < QUESTIONS_PER_QUIZ; j++) {
+                    Question question = new Question("Question " + j, quiz);
+                    List<Option> options = new ArrayList<>();
+                    for (int k = 0; k < OPTIONS_PER_QUESTION; k++) {
+                        options.add(new Option("Option " + k, k == 0, question));
+                    }
+                    question.setOptions(options);
+                    questions.add(question);
+                }
+                quiz.setQuestions(questions);
+                Quiz saved = quizRepository.save(quiz);
+                if (i == 0) {
+                    quizId = saved.getId();
+                }
+            }
+        });
+    }
+
+    @Test
+    void catalog_ShouldRunAFixedNumberOfStatements() throws Exception {
+        // Act
+        long statements = countStatements(() -> mockMvc.perform(get("/api/quizzes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(QUIZ_COUNT))
+                .andExpect(jsonPath("$[0].topicName").exists()));
+
+        // Assert: quiz and topic fingerprints for the ETag, then the summary listing
+        assertEquals(3, statements);
+    }
+
+    @Test
+    void quizDetail_ShouldRunAFixedNumberOfStatements() throws Exception {
+        // Act
+        long statements = countStatements(() -> mockMvc.perform(get("/api/professeur/clerk_endpoint_prof/quizzes/" + quizId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.questions.length()").value(QUESTIONS_PER_QUIZ))
+                .andExpect(jsonPath("$.questions[0].options.length()").value(OPTIONS_PER_QUESTION)));
+
+        // Assert: professor, version and owner for the ETag, quiz with its questions, then all their options
+        assertEquals(4, statements);
+    }
+
+    @Test
+    void quizDetail_ShouldCheckOwnership_BeforeRevalidating() throws Exception {
+        // Arrange
+        String etag = mockMvc.perform(get("/api/professeur/clerk_endpoint_prof/quizzes/" + quizId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert: the owner revalidates, another professor holding the tag learns nothing
+        mockMvc.perform(get("/api/professeur/clerk_endpoint_prof/quizzes/" + quizId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        mockMvc.perform(get("/api/professeur/clerk_other_prof/quizzes/" + quizId).header("If-None-Match", etag))
+                .andExpect(status().isForbidden())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    private long countStatements(Request request) throws Exception {
+        statistics.clear();
+        request.perform();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        ResultActions perform() throws Exception;
+    }
+}
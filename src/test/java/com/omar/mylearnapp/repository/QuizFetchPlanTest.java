@@ -0,0 +1,354 @@
+package com.omar.mylearnapp.repository;
+
+import com.omar.mylearnapp.dto.MissedQuestionReport;
+import com.omar.mylearnapp.dto.QuizSummary;
+import com.omar.mylearnapp.model.*;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement-count harness: every quiz read path must issue a fixed number of SQL statements,
+ * whatever the number of quizzes, questions and options returned.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QuizFetchPlanTest {
+
+    private static final int QUIZ_COUNT = 3;
+    private static final int QUESTIONS_PER_QUIZ = 4;
+    private static final int OPTIONS_PER_QUESTION = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    private Statistics statistics;
+    private Long professorId;
+    private Long topicId;
+    private Long quizId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        User professor = entityManager.persist(new User("clerk_prof", "prof@test.com", "Ada", "Lovelace", "professeur"));
+        professorId = professor.getId();
+
+        for (int i = 0; i < QUIZ_COUNT; i++) {
+            // Each quiz gets its own topic so a lazy or secondary topic load would show up per row
+            Topic topic = entityManager.persist(new Topic("Topic " + i, "Description " + i));
+            Quiz quiz = entityManager.persist(new Quiz("Quiz " + i, "Description", "Easy", "icon", "blue", "Science", 600, topic, professor));
+            if (i == 0) {
+                topicId = topic.getId();
+                quizId = quiz.getId();
+            }
+            for (int j = 0; j < QUESTIONS_PER_QUIZ; j++) {
+                Question question = entityManager.persist(new Question("Question " + j, quiz));
+                for (int k = 0; k < OPTIONS_PER_QUESTION; k++) {
+                    entityManager.persist(new Option("Option " + k, k == 0, question));
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findAll_ShouldLoadTopicsAndProfessorsInOneStatement() {
+        // Act
+        long statements = countStatements(() -> {
+            List<Quiz> quizzes = quizRepository.findAll();
+            quizzes.forEach(quiz -> {
+                quiz.getTopic().getName();
+                quiz.getProfessor().getFirstName();
+            });
+            return quizzes;
+        });
+
+        // Assert
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void findByProfessorId_ShouldLoadTopicsInOneStatement() {
+        // Act
+        long statements = countStatements(() -> {
+            List<Quiz> quizzes = quizRepository.findByProfessorId(professorId);
+            assertEquals(QUIZ_COUNT, quizzes.size());
+            quizzes.forEach(quiz -> quiz.getTopic().getName());
+            return quizzes;
+        });
+
+        // Assert
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void quizDetail_ShouldLoadQuestionsAndOptionsInTwoStatements() {
+        // Act
+        long statements = countStatements(() -> {
+            Optional<Quiz> quiz = quizRepository.findDetailById(quizId);
+            questionRepository.findWithOptionsByQuizId(quizId);
+
+            assertTrue(quiz.isPresent());
+            assertEquals(QUESTIONS_PER_QUIZ, quiz.get().getQuestions().size());
+            quiz.get().getTopic().getName();
+            quiz.get().getQuestions().forEach(question -> assertEquals(OPTIONS_PER_QUESTION, question.getOptions().size()));
+            return quiz;
+        });
+
+        // Assert
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void findWithOptionsByQuizId_ShouldLoadOptionsInTwoStatements() {
+        // Act
+        long statements = countStatements(() -> {
+            List<Question> questions = questionRepository.findWithOptionsByQuizId(quizId);
+            assertEquals(QUESTIONS_PER_QUIZ, questions.size());
+            questions.forEach(question -> question.getOptions().forEach(Option::getText));
+            return questions;
+        });
+
+        // Assert: questions with options, plus the eager owning quiz (with topic and professor) loaded once
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void summaryQueries_ShouldRunOneStatementEach() {
+        // Act
+        long listing = countStatements(() -> quizRepository.findSummariesAfter(0L, Limit.of(10)));
+        long byTopic = countStatements(() -> quizRepository.findSummariesByTopicIdAfter(topicId, 0L, Limit.of(10)));
+        long byProfessor = countStatements(() -> {
+            List<QuizSummary> summaries = quizRepository.findSummariesByProfessorId(professorId);
+            QuizSummary first = summaries.get(0);
+            assertEquals("Ada Lovelace", first.getProfessorName());
+            assertEquals(QUESTIONS_PER_QUIZ, first.getQuestionCount());
+            assertEquals("Topic 0", first.getTopicName());
+            return summaries;
+        });
+
+        // Assert
+        assertEquals(1, listing);
+        assertEquals(1, byTopic);
+        assertEquals(1, byProfessor);
+    }
+
+    @Test
+    void versionReads_ShouldRunOneStatementWithoutLoadingEntities() {
+        // Act
+        long version = countStatements(() -> quizRepository.findVersionById(quizId));
+        long fingerprint = countStatements(() -> quizRepository.findCatalogFingerprint());
+
+        // Assert
+        assertEquals(1, version);
+        assertEquals(1, fingerprint);
+        assertEquals(0, statistics.getEntityLoadCount());
+        Object[] row = quizRepository.findCatalogFingerprint().get(0);
+        assertEquals((long) QUIZ_COUNT, ((Number) row[0]).longValue());
+    }
+
+    @Test
+    void incrementVersion_ShouldBumpTheStoredVersion() {
+        // Act
+        quizRepository.incrementVersion(quizId);
+        entityManager.clear();
+
+        // Assert
+        assertEquals(Optional.of(1L), quizRepository.findVersionById(quizId));
+    }
+
+    @Test
+    void missedQuestionReport_ShouldReturnTextAndCountsInOneStatement() {
+        // Arrange: one attempt answering every question of the first quiz, wrong on all but the first
+        User student = entityManager.persist(new User("clerk_student", "student@test.com", "Grace", "Hopper", "student"));
+        QuizAttempt attempt = new QuizAttempt();
+        attempt.setUser(student);
+        attempt.setQuiz(entityManager.find(Quiz.class, quizId));
+        attempt = entityManager.persist(attempt);
+        List<Question> questions = questionRepository.findWithOptionsByQuizId(quizId);
+        for (int j = 0; j < questions.size(); j++) {
+            Option selected = questions.get(j).getOptions().get(j == 0 ? 0 : 1);
+            entityManager.persist(new Response(attempt, questions.get(j), selected));
+        }
+        entityManager.flush();
+
+        // Act
+        long statements = countStatements(() -> {
+            List<MissedQuestionReport> report = responseRepository.findMissedQuestionReport(quizId, Limit.of(2));
+            assertEquals(2, report.size());
+            assertNotNull(report.get(0).getQuestionText());
+            assertEquals(1L, report.get(0).getMissCount());
+            assertEquals(1.0, report.get(0).getMissRate());
+            return report;
+        });
+
+        // Assert
+        assertEquals(1, statements);
+        List<MissedQuestionReport.OptionMisses> options = responseRepository.findMissedOptionCounts(
+                List.of(questions.get(1).getId(), questions.get(2).getId()));
+        assertEquals(2, options.size());
+        assertEquals("Option 1", options.get(0).getOptionText());
+    }
+
+    @Test
+    void bulkDeletion_ShouldRemoveQuizInChunksWithoutLoadingEntities() {
+        // Arrange: two attempts answering every question of the first quiz
+        User student = entityManager.persist(new User("clerk_student", "student@test.com", "Grace", "Hopper", "student"));
+        List<Question> questions = questionRepository.findWithOptionsByQuizId(quizId);
+        for (int i = 0; i < 2; i++) {
+            QuizAttempt attempt = new QuizAttempt();
+            attempt.setUser(student);
+            attempt.setQuiz(entityManager.find(Quiz.class, quizId));
+            attempt = entityManager.persist(attempt);
+            for (Question question : questions) {
+                entityManager.persist(new Response(attempt, question, question.getOptions().get(0)));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act: responses in chunks of 5, then everything else
+        long responses = 0;
+        List<Long> ids;
+        while (!(ids = responseRepository.findIdsByQuizId(quizId, Limit.of(5))).isEmpty()) {
+            responses += responseRepository.deleteByIdIn(ids);
+        }
+        int attempts = quizAttemptRepository.deleteByIdIn(quizAttemptRepository.findIdsByQuizId(quizId, Limit.of(5)));
+        int options = optionRepository.deleteAllByQuizId(quizId);
+        int deletedQuestions = questionRepository.deleteAllByQuizId(quizId);
+        int quizzes = quizRepository.deleteQuizById(quizId);
+
+        // Assert
+        assertEquals(2L * QUESTIONS_PER_QUIZ, responses);
+        assertEquals(2, attempts);
+        assertEquals(QUESTIONS_PER_QUIZ * OPTIONS_PER_QUESTION, options);
+        assertEquals(QUESTIONS_PER_QUIZ, deletedQuestions);
+        assertEquals(1, quizzes);
+        assertFalse(quizRepository.existsById(quizId));
+        assertEquals(QUIZ_COUNT - 1, quizRepository.count());
+    }
+
+    @Test
+    void tombstone_ShouldHideQuizFromFinders_UntilPurged() {
+        // Act
+        int tombstoned = quizRepository.tombstone(quizId, LocalDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, tombstoned);
+        assertEquals(0, quizRepository.tombstone(quizId, LocalDateTime.now()));
+        assertFalse(quizRepository.findById(quizId).isPresent());
+        assertFalse(quizRepository.findDetailById(quizId).isPresent());
+        assertFalse(quizRepository.findVersionById(quizId).isPresent());
+        assertEquals(QUIZ_COUNT - 1, quizRepository.findAll().size());
+        assertEquals(QUIZ_COUNT - 1, quizRepository.findSummariesAfter(0L, Limit.of(10)).size());
+        assertTrue(quizRepository.findByTopicId(topicId).isEmpty());
+
+        // The purge still finds the tombstoned content and row
+        assertEquals(QUESTIONS_PER_QUIZ * OPTIONS_PER_QUESTION, optionRepository.deleteAllByQuizId(quizId));
+        assertEquals(QUESTIONS_PER_QUIZ, questionRepository.deleteAllByQuizId(quizId));
+        assertEquals(1, quizRepository.deleteQuizById(quizId));
+    }
+
+    @Test
+    void tombstone_ShouldCloseOpenAttempts_AndKeepTheirQuiz() {
+        // Arrange: one open attempt on the first quiz
+        User student = entityManager.persist(new User("clerk_student", "student@test.com", "Grace", "Hopper", "student"));
+        QuizAttempt attempt = entityManager.persist(
+                new QuizAttempt(student, entityManager.find(Quiz.class, quizId), LocalDateTime.now()));
+        entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Act
+        quizRepository.tombstone(quizId, now);
+        List<Long> open = quizAttemptRepository.findOpenIdsByQuizId(quizId);
+        int closed = quizAttemptRepository.closeOpenAttempts(quizId, now);
+        entityManager.clear();
+
+        // Assert
+        assertEquals(List.of(attempt.getId()), open);
+        assertEquals(1, closed);
+        assertTrue(quizAttemptRepository.findOpenIdsByQuizId(quizId).isEmpty());
+        QuizAttempt loaded = quizAttemptRepository.findById(attempt.getId()).orElseThrow();
+        assertNotNull(loaded.getEndTime());
+        assertNotNull(loaded.getQuiz());
+        assertNotNull(loaded.getQuiz().getDeletedAt());
+        assertEquals("Quiz 0", loaded.getQuiz().getTitle());
+    }
+
+    @Test
+    void lockingFinders_ShouldLoadAttemptsForUpdate_InIdOrder() {
+        // Arrange
+        User student = entityManager.persist(new User("clerk_locker", "locker@test.com", "Alan", "Turing", "student"));
+        Quiz quiz = entityManager.find(Quiz.class, quizId);
+        QuizAttempt first = entityManager.persist(new QuizAttempt(student, quiz, LocalDateTime.now()));
+        QuizAttempt second = entityManager.persist(new QuizAttempt(student, quiz, LocalDateTime.now()));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        Optional<QuizAttempt> locked = quizAttemptRepository.findByIdForUpdate(first.getId());
+        List<QuizAttempt> batch = quizAttemptRepository.findAllByIdForUpdate(List.of(second.getId(), first.getId()));
+
+        // Assert
+        assertTrue(locked.isPresent());
+        assertEquals(List.of(first.getId(), second.getId()), batch.stream().map(QuizAttempt::getId).toList());
+    }
+
+    @Test
+    void topicNames_ShouldBeCheckedInOneStatement_AndBeUnique() {
+        // Act
+        long statements = countStatements(() -> {
+            List<String> taken = topicRepository.findNamesIn(List.of("Topic 0", "Topic 2", "Topic 9"));
+            assertEquals(2, taken.size());
+            return taken;
+        });
+
+        // Assert
+        assertEquals(1, statements);
+        assertThrows(PersistenceException.class, () -> {
+            entityManager.persist(new Topic("Topic 0", "Duplicate"));
+            entityManager.flush();
+        });
+    }
+
+    private long countStatements(Supplier<?> readPath) {
+        entityManager.clear();
+        statistics.clear();
+        readPath.get();
+        return statistics.getPrepareStatementCount();
+    }
+}
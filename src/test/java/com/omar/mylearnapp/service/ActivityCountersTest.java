@@ -0,0 +1,132 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.repository.QuizAttemptRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityCountersTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-10T12:30:00Z");
+
+    @Mock
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @InjectMocks
+    private ActivityCounters activityCounters;
+
+    @BeforeEach
+    void setUp() {
+        setClock(NOW);
+    }
+
+    private void setClock(Instant instant) {
+        ReflectionTestUtils.setField(activityCounters, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+
+    @Test
+    void count_ShouldOnlyIncludeEventsInsideWindow() {
+        // Arrange
+        setClock(NOW.minus(Duration.ofHours(2)));
+        activityCounters.record(ActivityCounters.Event.STARTED);
+        setClock(NOW.minus(Duration.ofMinutes(10)));
+        activityCounters.record(ActivityCounters.Event.STARTED);
+        activityCounters.record(ActivityCounters.Event.SUBMITTED);
+        setClock(NOW);
+
+        // Act & Assert
+        assertEquals(1L, activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofHours(1)));
+        assertEquals(2L, activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofHours(24)));
+        assertEquals(2L, activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofDays(7)));
+        assertEquals(1L, activityCounters.count(ActivityCounters.Event.SUBMITTED, Duration.ofDays(7)));
+        assertEquals(0L, activityCounters.count(ActivityCounters.Event.EXPIRED, Duration.ofDays(30)));
+    }
+
+    @Test
+    void count_ShouldForgetEvents_WhenRingWrapsAround() {
+        // Arrange
+        setClock(NOW.minus(Duration.ofDays(31)));
+        activityCounters.record(ActivityCounters.Event.STARTED);
+        setClock(NOW);
+        activityCounters.record(ActivityCounters.Event.STARTED);
+
+        // Act & Assert
+        assertEquals(1L, activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofDays(30)));
+        assertEquals(1L, activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofDays(365)));
+    }
+
+    @Test
+    void record_ShouldOnlyCountCommittedTransactions() {
+        // Arrange
+        setClock(NOW);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act: one write rolled back, then its retry committed
+            activityCounters.record(ActivityCounters.Event.SUBMITTED);
+            long beforeCompletion = activityCounters.count(ActivityCounters.Event.SUBMITTED, Duration.ofHours(1));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            activityCounters.record(ActivityCounters.Event.SUBMITTED);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Assert
+            assertEquals(0L, beforeCompletion);
+            assertEquals(1L, activityCounters.count(ActivityCounters.Event.SUBMITTED, Duration.ofHours(1)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void seed_ShouldLoadMinuteAndHourBuckets() {
+        // Arrange: 4 attempts started at 12:05 today, 10 started three days ago, 2 expiries at 12:20
+        LocalDateTime threeDaysAgo = LocalDateTime.ofInstant(NOW.minus(Duration.ofDays(3)), ZoneOffset.UTC);
+        when(quizAttemptRepository.countStartedByMinuteSince(any()))
+                .thenReturn(rows(new Object[]{2025, 3, 10, 12, 5, 4L}));
+        when(quizAttemptRepository.countCompletedByMinuteSince(any()))
+                .thenReturn(rows(new Object[]{2025, 3, 10, 12, 20, 3L, 2L}));
+        when(quizAttemptRepository.countStartedByHourSince(any())).thenReturn(rows(
+                new Object[]{2025, 3, 10, 12, 4L},
+                new Object[]{threeDaysAgo.getYear(), threeDaysAgo.getMonthValue(), threeDaysAgo.getDayOfMonth(), threeDaysAgo.getHour(), 10L}));
+        when(quizAttemptRepository.countCompletedByHourSince(any()))
+                .thenReturn(Collections.singletonList(new Object[]{2025, 3, 10, 12, 3L, 2L}));
+
+        // Act
+        activityCounters.seed();
+
+        // Assert
+        assertEquals(4L, activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofHours(1)));
+        assertEquals(14L, activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofDays(7)));
+        assertEquals(2L, activityCounters.count(ActivityCounters.Event.EXPIRED, Duration.ofHours(1)));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> lastDay = (Map<String, Object>) activityCounters.snapshot().get("24h");
+        assertEquals(3L, lastDay.get("submitted"));
+    }
+}
@@ -0,0 +1,235 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.Question;
+import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AiQuizJobServiceTest {
+
+    @Mock
+    private GeminiService geminiService;
+
+    @InjectMocks
+    private AiQuizJobService aiQuizJobService;
+
+    private User professor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(aiQuizJobService, "workers", 1);
+        ReflectionTestUtils.setField(aiQuizJobService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(aiQuizJobService, "ttlMinutes", 30L);
+        ReflectionTestUtils.setField(aiQuizJobService, "streaming", false);
+        ReflectionTestUtils.setField(aiQuizJobService, "streamTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(aiQuizJobService, "eventSenderCount", 1);
+        ReflectionTestUtils.setField(aiQuizJobService, "subscriberBuffer", 2);
+
+        professor = new User();
+        professor.setClerkId("prof_1");
+        professor.setRole("professeur");
+    }
+
+    @AfterEach
+    void tearDown() {
+        aiQuizJobService.shutdown();
+    }
+
+    @Test
+    void submit_ShouldGenerateQuizInBackground() throws InterruptedException {
+        // Arrange
+        Quiz quiz = new Quiz();
+        quiz.setTitle("Java Basics");
+        when(geminiService.generateQuiz("text", "Java", 5, "Facile", "Programmation", false)).thenReturn(quiz);
+
+        // Act
+        AiQuizJob job = aiQuizJobService.submit("text", "Java", 5, "Facile", "Programmation", false, professor);
+        awaitFinished(job);
+
+        // Assert
+        assertEquals(AiQuizJob.Status.DONE, job.getStatus());
+        assertEquals("Java Basics", job.getResult().getTitle());
+        assertSame(professor, job.getResult().getProfessor());
+        assertEquals("prof_1", job.getProfessorId());
+        assertSame(job, aiQuizJobService.getJob(job.getId()).orElseThrow());
+        assertEquals(1L, aiQuizJobService.getStats().get("completed"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_ShouldListQuestionsAsTheyAreStreamed() throws InterruptedException {
+        // Arrange
+        ReflectionTestUtils.setField(aiQuizJobService, "streaming", true);
+        Question first = new Question();
+        first.setText("JVM ?");
+        Question second = new Question();
+        second.setText("GC ?");
+        Quiz quiz = new Quiz();
+        quiz.setTitle("Java Basics");
+        quiz.setQuestions(List.of(first, second));
+        when(geminiService.generateQuizStreaming(eq("text"), eq("Java"), eq(2), eq("Facile"), eq("Programmation"), eq(false), any()))
+                .thenAnswer(invocation -> {
+                    Consumer<Question> onQuestion = invocation.getArgument(6);
+                    onQuestion.accept(first);
+                    onQuestion.accept(second);
+                    return quiz;
+                });
+
+        // Act
+        AiQuizJob job = aiQuizJobService.submit("text", "Java", 2, "Facile", "Programmation", false, professor);
+        awaitFinished(job);
+
+        // Assert
+        assertEquals(AiQuizJob.Status.DONE, job.getStatus());
+        assertEquals(List.of(first, second), job.getQuestions());
+        assertEquals("Java Basics", job.getResult().getTitle());
+        verify(geminiService, never()).generateQuiz(anyString(), anyString(), anyInt(), anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    void subscribe_ShouldNotHoldUpGeneration_WhenClientIsSlow() throws Exception {
+        // Arrange: a client whose sends block, subscribed before the model writes three questions
+        ReflectionTestUtils.setField(aiQuizJobService, "streaming", true);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        SseEmitter slowClient = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    unblock.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        AiQuizJobService service = spy(aiQuizJobService);
+        doReturn(slowClient).when(service).createEmitter();
+        when(geminiService.generateQuizStreaming(anyString(), anyString(), anyInt(), anyString(), anyString(), anyBoolean(), any()))
+                .thenAnswer(invocation -> {
+                    subscribed.await(5, TimeUnit.SECONDS);
+                    Consumer<Question> onQuestion = invocation.getArgument(6);
+                    for (int i = 0; i < 3; i++) {
+                        onQuestion.accept(new Question());
+                    }
+                    return new Quiz();
+                });
+
+        try {
+            // Act
+            AiQuizJob job = service.submit("text", "Java", 3, "Facile", "Programmation", false, professor);
+            service.subscribe(job.getId());
+            subscribed.countDown();
+            awaitFinished(job);
+
+            // Assert: the generation finished while the client was still stuck on its first event
+            assertEquals(AiQuizJob.Status.DONE, job.getStatus());
+            assertEquals(1L, service.getStats().get("droppedSubscribers"));
+        } finally {
+            unblock.countDown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void submit_ShouldMarkJobFailed_WhenGenerationThrows() throws InterruptedException {
+        // Arrange
+        when(geminiService.generateQuiz(anyString(), anyString(), anyInt(), anyString(), anyString(), anyBoolean()))
+                .thenThrow(new RuntimeException("Failed to generate quiz: quota exceeded"));
+
+        // Act
+        AiQuizJob job = aiQuizJobService.submit("text", "Java", 5, "Facile", "Programmation", false, professor);
+        awaitFinished(job);
+
+        // Assert
+        assertEquals(AiQuizJob.Status.FAILED, job.getStatus());
+        assertEquals("Failed to generate quiz: quota exceeded", job.getError());
+        assertNull(job.getResult());
+        assertEquals(1L, aiQuizJobService.getStats().get("failed"));
+    }
+
+    @Test
+    void submit_ShouldReject_WhenQueueIsFull() throws InterruptedException {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(geminiService.generateQuiz(anyString(), anyString(), anyInt(), anyString(), anyString(), anyBoolean()))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return new Quiz();
+                });
+        AiQuizJob running = aiQuizJobService.submit("text", "Java", 5, "Facile", "Programmation", false, professor);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AiQuizJob queued = aiQuizJobService.submit("text", "Java", 5, "Facile", "Programmation", false, professor);
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class,
+                () -> aiQuizJobService.submit("text", "Java", 5, "Facile", "Programmation", false, professor));
+        assertEquals(AiQuizJob.Status.RUNNING, running.getStatus());
+        assertEquals(AiQuizJob.Status.QUEUED, queued.getStatus());
+        assertEquals(1L, aiQuizJobService.getStats().get("rejected"));
+        assertEquals(2, aiQuizJobService.getStats().get("jobs"));
+
+        release.countDown();
+        awaitFinished(queued);
+    }
+
+    @Test
+    void evictExpired_ShouldDropOnlyFinishedJobsPastTheirTtl() throws InterruptedException {
+        // Arrange
+        when(geminiService.generateQuiz(anyString(), anyString(), anyInt(), anyString(), anyString(), anyBoolean()))
+                .thenReturn(new Quiz());
+        AiQuizJob job = aiQuizJobService.submit("text", "Java", 5, "Facile", "Programmation", false, professor);
+        awaitFinished(job);
+
+        // Act
+        aiQuizJobService.evictExpired();
+        boolean keptWithinTtl = aiQuizJobService.getJob(job.getId()).isPresent();
+        ReflectionTestUtils.setField(aiQuizJobService, "ttlMinutes", 0L);
+        aiQuizJobService.evictExpired();
+
+        // Assert
+        assertTrue(keptWithinTtl);
+        assertTrue(aiQuizJobService.getJob(job.getId()).isEmpty());
+        assertEquals(1L, aiQuizJobService.getStats().get("evicted"));
+    }
+
+    @Test
+    void subscribe_ShouldThrowException_WhenJobDoesNotExist() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> aiQuizJobService.subscribe("missing"));
+        assertEquals("Generation job not found with id: missing", exception.getMessage());
+    }
+
+    private static void awaitFinished(AiQuizJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "job did not finish in time");
+    }
+}
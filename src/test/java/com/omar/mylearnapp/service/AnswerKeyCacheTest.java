@@ -0,0 +1,112 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.repository.QuestionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnswerKeyCacheTest {
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @InjectMocks
+    private AnswerKeyCache answerKeyCache;
+
+    private List<Object[]> answerKeyRows() {
+        return Arrays.asList(
+                new Object[]{1L, 10L, true},
+                new Object[]{1L, 11L, false},
+                new Object[]{2L, 20L, false},
+                new Object[]{2L, 21L, true},
+                new Object[]{3L, null, null}
+        );
+    }
+
+    @Test
+    void getAnswerKey_ShouldCompileKeyFromRows() {
+        // Arrange
+        when(questionRepository.findAnswerKeyRowsByQuizId(1L)).thenReturn(answerKeyRows());
+
+        // Act
+        AnswerKeyCache.AnswerKey answerKey = answerKeyCache.getAnswerKey(1L);
+
+        // Assert
+        assertEquals(3, answerKey.getQuestionCount());
+        assertTrue(answerKey.hasQuestion(3L));
+        assertFalse(answerKey.hasQuestion(4L));
+        assertTrue(answerKey.ownsOption(1L, 11L));
+        assertFalse(answerKey.ownsOption(1L, 20L));
+        assertTrue(answerKey.isCorrect(2L, 21L));
+        assertFalse(answerKey.isCorrect(2L, 20L));
+        assertTrue(answerKey.isCorrect(1L, 10L));
+        assertFalse(answerKey.isCorrect(1L, 21L));
+    }
+
+    @Test
+    void getAnswerKey_ShouldScoreEveryCorrectOption_OfAQuestion() {
+        // Arrange
+        when(questionRepository.findAnswerKeyRowsByQuizId(1L)).thenReturn(Arrays.asList(
+                new Object[]{1L, 10L, true},
+                new Object[]{1L, 11L, false},
+                new Object[]{1L, 12L, true}
+        ));
+
+        // Act
+        AnswerKeyCache.AnswerKey answerKey = answerKeyCache.getAnswerKey(1L);
+
+        // Assert
+        assertTrue(answerKey.isCorrect(1L, 10L));
+        assertTrue(answerKey.isCorrect(1L, 12L));
+        assertFalse(answerKey.isCorrect(1L, 11L));
+    }
+
+    @Test
+    void getAnswerKey_ShouldOnlyQueryOnce_UntilEvicted() {
+        // Arrange
+        when(questionRepository.findAnswerKeyRowsByQuizId(1L)).thenReturn(answerKeyRows());
+
+        // Act
+        AnswerKeyCache.AnswerKey first = answerKeyCache.getAnswerKey(1L);
+        AnswerKeyCache.AnswerKey second = answerKeyCache.getAnswerKey(1L);
+        answerKeyCache.evict(1L);
+        AnswerKeyCache.AnswerKey third = answerKeyCache.getAnswerKey(1L);
+
+        // Assert
+        assertSame(first, second);
+        assertNotSame(first, third);
+        verify(questionRepository, times(2)).findAnswerKeyRowsByQuizId(1L);
+    }
+
+    @Test
+    void evict_ShouldEvictAgain_WhenTransactionCompletes() {
+        // Arrange
+        when(questionRepository.findAnswerKeyRowsByQuizId(1L)).thenReturn(answerKeyRows());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act: a grading request compiles the old content before the change commits
+            answerKeyCache.evict(1L);
+            AnswerKeyCache.AnswerKey stale = answerKeyCache.getAnswerKey(1L);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            AnswerKeyCache.AnswerKey fresh = answerKeyCache.getAnswerKey(1L);
+
+            // Assert
+            assertNotSame(stale, fresh);
+            verify(questionRepository, times(2)).findAnswerKeyRowsByQuizId(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.model.QuizAttempt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttemptTimerServiceTest {
+
+    @Mock
+    private AttemptExpiryScheduler expiryScheduler;
+
+    @Mock
+    private QuizAttemptService quizAttemptService;
+
+    @InjectMocks
+    private AttemptTimerService attemptTimerService;
+
+    private QuizAttempt testAttempt;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(attemptTimerService, "intervalSeconds", 1L);
+
+        Quiz quiz = new Quiz();
+        quiz.setId(1L);
+        quiz.setTimeLimit(300);
+
+        testAttempt = new QuizAttempt();
+        testAttempt.setId(1L);
+        testAttempt.setQuiz(quiz);
+        testAttempt.setStartTime(LocalDateTime.now());
+    }
+
+    @AfterEach
+    void tearDown() {
+        attemptTimerService.shutdown();
+    }
+
+    @Test
+    void subscribe_ShouldNotLoadAttempt_WhenDeadlineIsTracked() {
+        // Arrange
+        when(expiryScheduler.getDeadline(1L)).thenReturn(LocalDateTime.now().plusMinutes(5));
+
+        // Act
+        assertNotNull(attemptTimerService.subscribe(1L));
+
+        // Assert
+        assertEquals(1, attemptTimerService.getOpenStreams());
+        verifyNoInteractions(quizAttemptService);
+    }
+
+    @Test
+    void subscribe_ShouldLoadDeadlineOnce_WhenAttemptIsNotTracked() {
+        // Arrange
+        when(quizAttemptService.getAttemptById(1L)).thenReturn(Optional.of(testAttempt));
+
+        // Act
+        attemptTimerService.subscribe(1L);
+
+        // Assert
+        assertEquals(1, attemptTimerService.getOpenStreams());
+        verify(quizAttemptService, times(1)).getAttemptById(1L);
+    }
+
+    @Test
+    void subscribe_ShouldCompleteImmediately_WhenAttemptIsSubmitted() {
+        // Arrange
+        testAttempt.setEndTime(LocalDateTime.now());
+        when(quizAttemptService.getAttemptById(1L)).thenReturn(Optional.of(testAttempt));
+
+        // Act
+        attemptTimerService.subscribe(1L);
+
+        // Assert
+        assertEquals(0, attemptTimerService.getOpenStreams());
+    }
+
+    @Test
+    void subscribe_ShouldThrowException_WhenAttemptNotFound() {
+        // Arrange
+        when(quizAttemptService.getAttemptById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> attemptTimerService.subscribe(99L));
+    }
+}
@@ -0,0 +1,109 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkDeletionServiceTest {
+
+    @Mock
+    private ResponseRepository responseRepository;
+
+    @Mock
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Mock
+    private OptionRepository optionRepository;
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    @Mock
+    private QuestionOptionStatsRepository optionStatsRepository;
+
+    @Mock
+    private OptionStatsCounters optionStatsCounters;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BulkDeletionService bulkDeletionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkDeletionService, "chunkSize", 2);
+    }
+
+    @Test
+    void deleteQuiz_ShouldDeleteResponsesAndAttemptsInChunks_AndReportRowsRemoved() {
+        // Arrange: five responses in chunks of two, one attempt
+        when(responseRepository.findIdsByQuizId(1L, Limit.of(2))).thenReturn(
+                Arrays.asList(1L, 2L), Arrays.asList(3L, 4L), Collections.singletonList(5L));
+        when(responseRepository.deleteByIdIn(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        when(quizAttemptRepository.findIdsByQuizId(1L, Limit.of(2))).thenReturn(Collections.singletonList(7L));
+        when(quizAttemptRepository.deleteByIdIn(anyList())).thenReturn(1);
+        when(optionRepository.findIdsByQuizId(1L)).thenReturn(Arrays.asList(
+                new Object[]{10L, 100L}, new Object[]{10L, 101L}, new Object[]{11L, 110L}));
+        when(optionRepository.deleteAllByQuizId(1L)).thenReturn(6);
+        when(questionRepository.deleteAllByQuizId(1L)).thenReturn(2);
+        when(quizRepository.deleteQuizById(1L)).thenReturn(1);
+
+        // Act
+        Map<String, Long> report = bulkDeletionService.deleteQuiz(1L);
+
+        // Assert
+        assertEquals(5L, report.get("responses"));
+        assertEquals(1L, report.get("attempts"));
+        assertEquals(6L, report.get("options"));
+        assertEquals(2L, report.get("questions"));
+        assertEquals(1L, report.get("quizzes"));
+        verify(responseRepository, times(3)).deleteByIdIn(anyList());
+        verify(optionStatsRepository, times(1)).deleteAllByQuizId(1L);
+        verify(optionStatsCounters, times(1)).discardOptions(10L, List.of(100L, 101L));
+        verify(optionStatsCounters, times(1)).discardOptions(11L, List.of(110L));
+        // Three response chunks, one attempt chunk and the content transaction
+        verify(transactionManager, times(5)).commit(any());
+    }
+
+    @Test
+    void deleteQuestion_ShouldSkipDelete_WhenNoResponses() {
+        // Arrange
+        when(responseRepository.findIdsByQuestionId(3L, Limit.of(2))).thenReturn(Collections.emptyList());
+        when(optionRepository.findIdsByQuestionId(3L)).thenReturn(List.of(30L, 31L));
+        when(optionRepository.deleteAllByQuestionId(3L)).thenReturn(4);
+        when(questionRepository.deleteQuestionById(3L)).thenReturn(1);
+
+        // Act
+        Map<String, Long> report = bulkDeletionService.deleteQuestion(3L);
+
+        // Assert
+        assertEquals(0L, report.get("responses"));
+        assertEquals(4L, report.get("options"));
+        assertEquals(1L, report.get("questions"));
+        verify(responseRepository, never()).deleteByIdIn(any());
+        verify(optionStatsRepository, times(1)).deleteAllByQuestionId(3L);
+        verify(optionStatsCounters, times(1)).discardOptions(3L, List.of(30L, 31L));
+    }
+}
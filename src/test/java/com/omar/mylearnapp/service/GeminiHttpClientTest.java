@@ -0,0 +1,261 @@
+package com.omar.mylearnapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omar.mylearnapp.model.Question;
+import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.repository.GeneratedQuizRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Exercises the pooled client against a local stub of the Gemini API.
+ */
+class GeminiHttpClientTest {
+
+    private static final String GENERATED = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+            + "\"```json {\\\"title\\\":\\\"Java\\\",\\\"description\\\":\\\"Bases\\\",\\\"questions\\\":[{\\\"text\\\":\\\"JVM ?\\\","
+            + "\\\"options\\\":[{\\\"text\\\":\\\"Machine\\\",\\\"isCorrect\\\":true},{\\\"text\\\":\\\"Langage\\\",\\\"isCorrect\\\":false}]}]} ```\"}]}}]}";
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private GeminiHttpClient client;
+    private String baseUrl;
+    private volatile long delayMillis;
+    private final CountDownLatch release = new CountDownLatch(1);
+    // Counted down by the client when it receives the first streamed question
+    private final CountDownLatch firstQuestion = new CountDownLatch(1);
+    private volatile boolean firstQuestionBeforeEnd;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            try {
+                if (delayMillis > 0) {
+                    release.await(delayMillis, TimeUnit.MILLISECONDS);
+                }
+                byte[] body = GENERATED.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // Client went away
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/v1beta/models/gemini-test:streamGenerateContent", exchange -> {
+            try {
+                exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream out = exchange.getResponseBody();
+                sendChunk(out, "```json\n{\"title\": \"Java\", \"description\": \"Bases {de} [la] JVM\",\n\"questions\": [{\"text\": \"JVM");
+                sendChunk(out, " ?\", \"options\": [{\"text\": \"Machine \\\"virtuelle\\\"\", \"isCorrect\": true}, {\"text\": \"Langage\", \"isCorrect\": false}]}");
+                // The rest of the quiz is only written once the client has the first question
+                firstQuestionBeforeEnd = firstQuestion.await(5, TimeUnit.SECONDS);
+                sendChunk(out, ", {\"text\": \"GC ?\", \"options\": [{\"text\": \"Ramasse-miettes\", \"isCorrect\": true}]}");
+                sendChunk(out, "]}\n```");
+                out.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // Client went away
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta";
+
+        client = createClient(5000L);
+    }
+
+    private static GeminiHttpClient createClient(long readTimeoutMillis) {
+        GeminiHttpClient client = new GeminiHttpClient();
+        ReflectionTestUtils.setField(client, "maxConnections", 4);
+        ReflectionTestUtils.setField(client, "maxPerRoute", 1);
+        ReflectionTestUtils.setField(client, "poolTimeoutMillis", 200L);
+        ReflectionTestUtils.setField(client, "connectTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(client, "readTimeoutMillis", readTimeoutMillis);
+        ReflectionTestUtils.setField(client, "totalTimeoutMillis", 10000L);
+        ReflectionTestUtils.setField(client, "idleEvictionSeconds", 30L);
+        client.init();
+        return client;
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        client.close();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private static void sendChunk(OutputStream out, String text) throws IOException {
+        Map<String, Object> content = Map.of("parts", List.of(Map.of("text", text)), "role", "model");
+        String chunk = new ObjectMapper().writeValueAsString(Map.of("candidates", List.of(Map.of("content", content))));
+        out.write(("data: " + chunk + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private GeminiService geminiService() {
+        GeneratedQuizCache cache = new GeneratedQuizCache();
+        ReflectionTestUtils.setField(cache, "generatedQuizRepository", mock(GeneratedQuizRepository.class));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+        ReflectionTestUtils.setField(cache, "ttlDays", 30L);
+
+        GeminiService geminiService = new GeminiService();
+        ReflectionTestUtils.setField(geminiService, "generatedQuizCache", cache);
+        ReflectionTestUtils.setField(geminiService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(geminiService, "modelId", "gemini-test");
+        ReflectionTestUtils.setField(geminiService, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(geminiService, "geminiHttpClient", client);
+        return geminiService;
+    }
+
+    private ResponseEntity<String> post() {
+        return client.getRestTemplate().postForEntity(baseUrl + "/models/m:generateContent", "{}", String.class);
+    }
+
+    @Test
+    void generateQuiz_ShouldGoThroughThePooledClient() {
+        // Arrange
+        GeminiService geminiService = geminiService();
+
+        // Act
+        Quiz quiz = geminiService.generateQuiz("topic", "Java", 1, "Easy", "Programming");
+        Quiz again = geminiService.generateQuiz("topic", "Java", 1, "Easy", "Programming", true);
+
+        // Assert
+        assertEquals("Java", quiz.getTitle());
+        assertEquals(2, quiz.getQuestions().get(0).getOptions().size());
+        assertTrue(quiz.getQuestions().get(0).getOptions().get(0).isCorrect());
+        assertEquals("Java", again.getTitle());
+        assertEquals(2L, client.getStats().get("requests"));
+        assertEquals(0L, client.getStats().get("failures"));
+        // Kept alive for the next call
+        assertEquals(0, client.getStats().get("leased"));
+        assertEquals(1, client.getStats().get("available"));
+        // Each deadline was dropped with its response
+        assertEquals(0, client.getStats().get("pendingDeadlines"));
+    }
+
+    @Test
+    void generateQuiz_ShouldAnswerRepeatedRequestsFromTheCache() {
+        // Arrange
+        GeminiService geminiService = geminiService();
+
+        // Act
+        Quiz first = geminiService.generateQuiz("topic", "Java", 1, "Easy", "Programming");
+        Quiz cached = geminiService.generateQuiz("topic", "Java", 1, "Easy", "Backend");
+        Quiz forced = geminiService.generateQuiz("topic", "Java", 1, "Easy", "Programming", true);
+        Quiz otherContent = geminiService.generateQuiz("topic", "Kotlin", 1, "Easy", "Programming");
+
+        // Assert
+        assertEquals("Java", cached.getTitle());
+        assertEquals("Backend", cached.getCategory());
+        assertNotSame(first.getQuestions().get(0), cached.getQuestions().get(0));
+        assertEquals("Java", forced.getTitle());
+        assertEquals("Java", otherContent.getTitle());
+        assertEquals(3L, client.getStats().get("requests"));
+    }
+
+    @Test
+    void post_ShouldFail_WhenReadTimesOut() {
+        // Arrange
+        client.close();
+        client = createClient(200L);
+        delayMillis = 5000;
+
+        // Act & Assert
+        assertThrows(ResourceAccessException.class, this::post);
+        assertEquals(1L, client.getStats().get("readTimeouts"));
+    }
+
+    @Test
+    void post_ShouldBeAborted_AtTheTotalDeadline() {
+        // Arrange
+        ReflectionTestUtils.setField(client, "totalTimeoutMillis", 300L);
+        delayMillis = 5000;
+
+        // Act
+        long start = System.nanoTime();
+        assertThrows(ResourceAccessException.class, this::post);
+
+        // Assert
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 4000);
+        assertEquals(1L, client.getStats().get("deadlineTimeouts"));
+    }
+
+    @Test
+    void post_ShouldFailFast_WhenThePoolIsExhausted() throws Exception {
+        // Arrange: the only connection of the route is held by a slow call
+        delayMillis = 5000;
+        CompletableFuture<ResponseEntity<String>> slow = CompletableFuture.supplyAsync(this::post);
+        long deadline = System.currentTimeMillis() + 2000;
+        while ((int) client.getStats().getOrDefault("leased", 0) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Act & Assert
+        assertThrows(ResourceAccessException.class, this::post);
+        assertEquals(1L, client.getStats().get("poolTimeouts"));
+
+        release.countDown();
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).getStatusCode().value());
+    }
+
+    @Test
+    void generateQuizStreaming_ShouldDeliverEachQuestionAsItArrives() {
+        // Arrange
+        GeminiService geminiService = geminiService();
+        List<Question> received = new CopyOnWriteArrayList<>();
+
+        // Act
+        Quiz quiz = geminiService.generateQuizStreaming("topic", "Java", 2, "Easy", "Programming", false, question -> {
+            received.add(question);
+            firstQuestion.countDown();
+        });
+
+        // Assert
+        assertTrue(firstQuestionBeforeEnd);
+        assertEquals(2, received.size());
+        assertEquals("JVM ?", received.get(0).getText());
+        assertEquals("Machine \"virtuelle\"", received.get(0).getOptions().get(0).getText());
+        assertTrue(received.get(0).getOptions().get(0).isCorrect());
+        assertEquals("GC ?", received.get(1).getText());
+        assertEquals("Java", quiz.getTitle());
+        assertEquals("Bases {de} [la] JVM", quiz.getDescription());
+        assertEquals(2, quiz.getQuestions().size());
+        assertEquals(1L, client.getStats().get("requests"));
+        assertEquals(0, client.getStats().get("pendingDeadlines"));
+    }
+}
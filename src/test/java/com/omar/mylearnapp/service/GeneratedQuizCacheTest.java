@@ -0,0 +1,144 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.GeneratedQuiz;
+import com.omar.mylearnapp.repository.GeneratedQuizRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeneratedQuizCacheTest {
+
+    @Mock
+    private GeneratedQuizRepository generatedQuizRepository;
+
+    @InjectMocks
+    private GeneratedQuizCache generatedQuizCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(generatedQuizCache, "enabled", true);
+        ReflectionTestUtils.setField(generatedQuizCache, "maxEntries", 2);
+        ReflectionTestUtils.setField(generatedQuizCache, "ttlDays", 30L);
+    }
+
+    @Test
+    void key_ShouldDependOnEveryPartAndItsBoundaries() {
+        // Act & Assert
+        assertEquals(GeneratedQuizCache.key("topic", "Java", 5), GeneratedQuizCache.key("topic", "Java", 5));
+        assertEquals(64, GeneratedQuizCache.key("topic", "Java", 5).length());
+        assertNotEquals(GeneratedQuizCache.key("topic", "Java", 5), GeneratedQuizCache.key("topic", "Java", 6));
+        assertNotEquals(GeneratedQuizCache.key("ab", "c"), GeneratedQuizCache.key("a", "bc"));
+    }
+
+    @Test
+    void put_ShouldStoreInBothTiers() {
+        // Act
+        generatedQuizCache.put("k1", "gemini-test", "{\"title\":\"Java\"}");
+        Optional<String> result = generatedQuizCache.get("k1");
+
+        // Assert
+        assertEquals(Optional.of("{\"title\":\"Java\"}"), result);
+        ArgumentCaptor<GeneratedQuiz> saved = ArgumentCaptor.forClass(GeneratedQuiz.class);
+        verify(generatedQuizRepository).save(saved.capture());
+        assertEquals("k1", saved.getValue().getContentKey());
+        assertEquals("gemini-test", saved.getValue().getModelId());
+        verify(generatedQuizRepository, never()).findById(anyString());
+        assertEquals(1L, generatedQuizCache.getStats().get("memoryHits"));
+    }
+
+    @Test
+    void get_ShouldEvictLeastRecentlyUsedEntry_AndFallBackToTheStore() {
+        // Arrange
+        generatedQuizCache.put("k1", "gemini-test", "one");
+        generatedQuizCache.put("k2", "gemini-test", "two");
+        generatedQuizCache.get("k1");
+        generatedQuizCache.put("k3", "gemini-test", "three");
+        when(generatedQuizRepository.findById("k2"))
+                .thenReturn(Optional.of(new GeneratedQuiz("k2", "gemini-test", "two", LocalDateTime.now())));
+
+        // Act
+        Optional<String> evicted = generatedQuizCache.get("k2");
+        Optional<String> promoted = generatedQuizCache.get("k2");
+
+        // Assert
+        assertEquals(Optional.of("two"), evicted);
+        assertEquals(Optional.of("two"), promoted);
+        verify(generatedQuizRepository, times(1)).findById("k2");
+        assertEquals(1L, generatedQuizCache.getStats().get("storeHits"));
+        assertEquals(2, generatedQuizCache.getStats().get("entries"));
+    }
+
+    @Test
+    void get_ShouldMiss_WhenStoredEntryIsPastItsTtl() {
+        // Arrange
+        when(generatedQuizRepository.findById("k1"))
+                .thenReturn(Optional.of(new GeneratedQuiz("k1", "gemini-test", "old", LocalDateTime.now().minusDays(31))));
+
+        // Act
+        Optional<String> result = generatedQuizCache.get("k1");
+
+        // Assert
+        assertTrue(result.isEmpty());
+        assertEquals(1L, generatedQuizCache.getStats().get("misses"));
+    }
+
+    @Test
+    void get_ShouldMiss_WhenMemoryEntryIsPastItsTtl() {
+        // Arrange
+        generatedQuizCache.put("k1", "gemini-test", "old");
+        ReflectionTestUtils.setField(generatedQuizCache, "ttlDays", 0L);
+
+        // Act
+        Optional<String> result = generatedQuizCache.get("k1");
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(generatedQuizRepository).findById("k1");
+        assertEquals(0L, generatedQuizCache.getStats().get("memoryHits"));
+        assertEquals(0, generatedQuizCache.getStats().get("entries"));
+    }
+
+    @Test
+    void getAndPut_ShouldDegradeToMiss_WhenTheStoreFails() {
+        // Arrange
+        when(generatedQuizRepository.findById("k1")).thenThrow(new DataAccessResourceFailureException("down"));
+        when(generatedQuizRepository.save(any(GeneratedQuiz.class))).thenThrow(new DataAccessResourceFailureException("down"));
+
+        // Act
+        Optional<String> missed = generatedQuizCache.get("k1");
+        generatedQuizCache.put("k1", "gemini-test", "fresh");
+
+        // Assert
+        assertTrue(missed.isEmpty());
+        assertEquals(Optional.of("fresh"), generatedQuizCache.get("k1"));
+    }
+
+    @Test
+    void get_ShouldBypassBothTiers_WhenDisabled() {
+        // Arrange
+        ReflectionTestUtils.setField(generatedQuizCache, "enabled", false);
+
+        // Act
+        generatedQuizCache.put("k1", "gemini-test", "one");
+        Optional<String> result = generatedQuizCache.get("k1");
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(generatedQuizRepository);
+    }
+}
@@ -0,0 +1,76 @@
+package com.omar.mylearnapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void advance_ShouldExpireIdsAfterTheirDeadline() {
+        // Arrange
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, 0);
+        wheel.schedule(1L, 250);
+        wheel.schedule(2L, 120);
+
+        // Act & Assert
+        assertTrue(wheel.advance(199).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(200));
+        assertTrue(wheel.advance(299).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldHandleDeadlinesBeyondOneRotation() {
+        // Arrange
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 4, 0);
+        wheel.schedule(1L, 1050); // Several rotations of a 4-bucket wheel
+
+        // Act & Assert
+        assertTrue(wheel.advance(1000).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(1100));
+    }
+
+    @Test
+    void advance_ShouldExpirePastDeadlinesOnNextTick() {
+        // Arrange
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, 1000);
+        wheel.schedule(1L, 10);
+
+        // Act & Assert
+        assertEquals(List.of(1L), wheel.advance(1100));
+    }
+
+    @Test
+    void cancel_ShouldPreventExpiry() {
+        // Arrange
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, 0);
+        wheel.schedule(1L, 150);
+        wheel.advance(100);
+
+        // Act
+        assertTrue(wheel.cancel(1L));
+
+        // Assert
+        assertTrue(wheel.advance(1000).isEmpty());
+        assertNull(wheel.getDeadline(1L));
+    }
+
+    @Test
+    void schedule_ShouldReplacePreviousDeadline() {
+        // Arrange
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, 0);
+        wheel.schedule(1L, 150);
+
+        // Act
+        wheel.schedule(1L, 450);
+
+        // Assert
+        assertEquals(450L, wheel.getDeadline(1L));
+        assertTrue(wheel.advance(400).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(500));
+    }
+}
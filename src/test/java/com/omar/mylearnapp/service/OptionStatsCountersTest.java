@@ -0,0 +1,130 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.Option;
+import com.omar.mylearnapp.model.Question;
+import com.omar.mylearnapp.model.QuestionOptionStats;
+import com.omar.mylearnapp.model.Response;
+import com.omar.mylearnapp.repository.QuestionOptionStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OptionStatsCountersTest {
+
+    @Mock
+    private QuestionOptionStatsRepository optionStatsRepository;
+
+    @InjectMocks
+    private OptionStatsCounters optionStatsCounters;
+
+    private List<PendingSubmission.GradedResponse> graded() {
+        return Arrays.asList(
+                new PendingSubmission.GradedResponse(1L, 10L, true),
+                new PendingSubmission.GradedResponse(2L, 21L, false));
+    }
+
+    private QuestionOptionStats persisted(Long optionId, long responses, long correct) {
+        QuestionOptionStats stats = new QuestionOptionStats();
+        stats.setOptionId(optionId);
+        stats.setQuestionId(1L);
+        stats.setResponseCount(responses);
+        stats.setCorrectCount(correct);
+        return stats;
+    }
+
+    @Test
+    void getCounts_ShouldMergePersistedCountsWithUnflushedDelta() {
+        // Arrange
+        when(optionStatsRepository.findByQuestionId(1L))
+                .thenReturn(Arrays.asList(persisted(10L, 5, 5), persisted(11L, 3, 0)));
+        optionStatsCounters.recordResponses(graded());
+        optionStatsCounters.recordResponses(graded());
+
+        // Act
+        Map<Long, long[]> counts = optionStatsCounters.getCounts(1L);
+
+        // Assert
+        assertArrayEquals(new long[]{7, 7}, counts.get(10L));
+        assertArrayEquals(new long[]{3, 0}, counts.get(11L));
+        assertFalse(counts.containsKey(21L));
+    }
+
+    @Test
+    void discardOptions_ShouldKeepDeletedOptionsOutOfTheNextFlush() {
+        // Arrange
+        optionStatsCounters.recordResponses(graded());
+
+        // Act
+        optionStatsCounters.discardOptions(1L, List.of(10L));
+        optionStatsCounters.flush();
+
+        // Assert
+        verify(optionStatsRepository, never()).addCounts(eq(10L), anyLong(), anyLong(), anyLong());
+        verify(optionStatsRepository, times(1)).addCounts(21L, 2L, 1L, 0L);
+    }
+
+    @Test
+    void flush_ShouldWriteDeltasOnce() {
+        // Arrange
+        optionStatsCounters.recordResponses(graded());
+        optionStatsCounters.recordResponses(graded());
+
+        // Act
+        optionStatsCounters.flush();
+        optionStatsCounters.flush();
+
+        // Assert
+        verify(optionStatsRepository, times(1)).addCounts(10L, 1L, 2L, 2L);
+        verify(optionStatsRepository, times(1)).addCounts(21L, 2L, 2L, 0L);
+        assertEquals(0L, optionStatsCounters.getStats().get("pendingOptions"));
+        assertEquals(2L, optionStatsCounters.getStats().get("flushedRows"));
+    }
+
+    @Test
+    void flush_ShouldKeepDelta_WhenWriteFails() {
+        // Arrange
+        optionStatsCounters.recordResponses(Collections.singletonList(new PendingSubmission.GradedResponse(1L, 10L, true)));
+        when(optionStatsRepository.addCounts(10L, 1L, 1L, 1L))
+                .thenThrow(new RuntimeException("Database unavailable"))
+                .thenReturn(1);
+
+        // Act
+        assertThrows(RuntimeException.class, () -> optionStatsCounters.flush());
+        optionStatsCounters.flush();
+
+        // Assert
+        verify(optionStatsRepository, times(2)).addCounts(10L, 1L, 1L, 1L);
+        assertEquals(0L, optionStatsCounters.getStats().get("pendingOptions"));
+    }
+
+    @Test
+    void removeResponses_ShouldRecordNegativeDelta() {
+        // Arrange
+        Question question = new Question();
+        question.setId(1L);
+        Option option = new Option("4", true, question);
+        option.setId(10L);
+        Response response = new Response();
+        response.setQuestion(question);
+        response.setSelectedOption(option);
+        response.setCorrect(true);
+
+        // Act
+        optionStatsCounters.removeResponses(Collections.singletonList(response));
+        optionStatsCounters.flush();
+
+        // Assert
+        verify(optionStatsRepository).addCounts(10L, 1L, -1L, -1L);
+    }
+}
@@ -0,0 +1,149 @@
+package com.omar.mylearnapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlayerViewCacheTest {
+
+    @Mock
+    private QuizContentCache quizContentCache;
+
+    @InjectMocks
+    private PlayerViewCache playerViewCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(playerViewCache, "maxEntries", 10);
+        ReflectionTestUtils.setField(playerViewCache, "gzipEnabled", true);
+    }
+
+    private QuizSnapshot snapshot(String title) {
+        return snapshot(title, 0L);
+    }
+
+    private QuizSnapshot snapshot(String title, long version) {
+        QuizSnapshot.QuestionSnapshot question = new QuizSnapshot.QuestionSnapshot(10L, "What is 2+2?", Arrays.asList(
+                new QuizSnapshot.OptionSnapshot(100L, "4", true),
+                new QuizSnapshot.OptionSnapshot(101L, "5", false)));
+        return new QuizSnapshot(1L, version, title, "Description", "Easy", "Math", "icon", "blue", 300,
+                2L, "Arithmetic", 3L, Collections.singletonList(question));
+    }
+
+    @Test
+    void getPlayerView_ShouldStripAnswerFlags() throws Exception {
+        // Arrange
+        when(quizContentCache.getSnapshot(1L)).thenReturn(Optional.of(snapshot("Quiz")));
+
+        // Act
+        PlayerViewCache.PlayerView view = playerViewCache.getPlayerView(1L).orElseThrow();
+
+        // Assert
+        JsonNode json = objectMapper.readTree(view.getJson());
+        assertEquals("Quiz", json.get("title").asText());
+        JsonNode option = json.get("questions").get(0).get("options").get(0);
+        assertEquals(100L, option.get("id").asLong());
+        assertEquals("4", option.get("text").asText());
+        assertFalse(new String(view.getJson()).contains("orrect"));
+    }
+
+    @Test
+    void getPlayerView_ShouldReuseBytes_WhileSnapshotIsUnchanged() {
+        // Arrange
+        when(quizContentCache.getSnapshot(1L)).thenReturn(Optional.of(snapshot("Quiz")));
+
+        // Act
+        PlayerViewCache.PlayerView first = playerViewCache.getPlayerView(1L).orElseThrow();
+        PlayerViewCache.PlayerView second = playerViewCache.getPlayerView(1L).orElseThrow();
+
+        // Assert
+        assertSame(first.getJson(), second.getJson());
+        assertEquals(1L, playerViewCache.getStats().get("builds"));
+    }
+
+    @Test
+    void getPlayerView_ShouldReuseBytes_WhenSnapshotIsReloadedAtSameVersion() {
+        // Arrange: the content cache evicted and reloaded the quiz without any change
+        when(quizContentCache.getSnapshot(1L))
+                .thenReturn(Optional.of(snapshot("Quiz")))
+                .thenReturn(Optional.of(snapshot("Quiz")));
+
+        // Act
+        PlayerViewCache.PlayerView first = playerViewCache.getPlayerView(1L).orElseThrow();
+        PlayerViewCache.PlayerView second = playerViewCache.getPlayerView(1L).orElseThrow();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1L, playerViewCache.getStats().get("builds"));
+    }
+
+    @Test
+    void acceptsGzip_ShouldHonourQValues() {
+        // Act & Assert
+        assertTrue(PlayerViewCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PlayerViewCache.acceptsGzip("deflate;q=0.5, GZIP;q=0.8"));
+        assertTrue(PlayerViewCache.acceptsGzip("*"));
+        assertFalse(PlayerViewCache.acceptsGzip("gzip;q=0"));
+        assertFalse(PlayerViewCache.acceptsGzip("gzip;q=0.0, *;q=1"));
+        assertFalse(PlayerViewCache.acceptsGzip("identity"));
+        assertFalse(PlayerViewCache.acceptsGzip(null));
+    }
+
+    @Test
+    void getPlayerView_ShouldRebuild_WhenVersionChanges() throws Exception {
+        // Arrange
+        when(quizContentCache.getSnapshot(1L))
+                .thenReturn(Optional.of(snapshot("Before", 0L)))
+                .thenReturn(Optional.of(snapshot("After", 1L)));
+
+        // Act
+        playerViewCache.getPlayerView(1L);
+        PlayerViewCache.PlayerView updated = playerViewCache.getPlayerView(1L).orElseThrow();
+
+        // Assert
+        assertEquals("After", objectMapper.readTree(updated.getJson()).get("title").asText());
+        assertEquals(2L, playerViewCache.getStats().get("builds"));
+    }
+
+    @Test
+    void getPlayerView_ShouldPrecomputeGzip() throws Exception {
+        // Arrange
+        when(quizContentCache.getSnapshot(1L)).thenReturn(Optional.of(snapshot("Quiz")));
+
+        // Act
+        PlayerViewCache.PlayerView view = playerViewCache.getPlayerView(1L).orElseThrow();
+
+        // Assert
+        assertTrue(view.hasGzip());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(view.getGzip()))) {
+            assertArrayEquals(view.getJson(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void getPlayerView_ShouldReturnEmpty_WhenQuizNotFound() {
+        // Arrange
+        when(quizContentCache.getSnapshot(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertFalse(playerViewCache.getPlayerView(99L).isPresent());
+    }
+}
@@ -15,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -34,6 +35,15 @@ class QuestionServiceTest {
     @Mock
     private QuizRepository quizRepository;
 
+    @Mock
+    private AnswerKeyCache answerKeyCache;
+
+    @Mock
+    private QuizContentCache quizContentCache;
+
+    @Mock
+    private BulkDeletionService bulkDeletionService;
+
     @InjectMocks
     private QuestionService questionService;
 
@@ -120,8 +130,8 @@ class QuestionServiceTest {
     void getQuestionsByQuizId_ShouldReturnQuizQuestions() {
         // Arrange
         System.out.println("\n--- TEST: getQuestionsByQuizId_ShouldReturnQuizQuestions ---");
-        System.out.println("Setting up mock for questionRepository.findByQuizId(" + testQuizId + ")");
-        when(questionRepository.findByQuizId(testQuizId)).thenReturn(questionList);
+        System.out.println("Setting up mock for questionRepository.findWithOptionsByQuizId(" + testQuizId + ")");
+        when(questionRepository.findWithOptionsByQuizId(testQuizId)).thenReturn(questionList);
 
         // Act
         System.out.println("Calling questionService.getQuestionsByQuizId(" + testQuizId + ")");
@@ -132,8 +142,8 @@ class QuestionServiceTest {
         assertEquals(1, result.size());
         assertEquals(testQuestion, result.get(0));
 
-        System.out.println("Verifying questionRepository.findByQuizId() was called");
-        verify(questionRepository, times(1)).findByQuizId(testQuizId);
+        System.out.println("Verifying questionRepository.findWithOptionsByQuizId() was called");
+        verify(questionRepository, times(1)).findWithOptionsByQuizId(testQuizId);
 
         System.out.println("getQuestionsByQuizId test completed successfully");
     }
@@ -288,19 +298,38 @@ class QuestionServiceTest {
         // Arrange
         System.out.println("\n--- TEST: deleteQuestion_ShouldDeleteQuestion ---");
         System.out.println("Setting up test for deletion of question with ID: " + testQuestionId);
-        doNothing().when(questionRepository).deleteById(testQuestionId);
+        Map<String, Long> deleted = Map.of("responses", 12L, "options", 2L, "questions", 1L);
+        when(bulkDeletionService.deleteQuestion(testQuestionId)).thenReturn(deleted);
 
         // Act
         System.out.println("Calling questionService.deleteQuestion(" + testQuestionId + ")");
-        questionService.deleteQuestion(testQuestionId);
+        Map<String, Long> report = questionService.deleteQuestion(testQuestionId);
 
         // Assert
-        System.out.println("Verifying questionRepository.deleteById() was called");
-        verify(questionRepository, times(1)).deleteById(testQuestionId);
+        System.out.println("Verifying bulkDeletionService.deleteQuestion() was called");
+        assertEquals(deleted, report);
+        verify(bulkDeletionService, times(1)).deleteQuestion(testQuestionId);
+        verify(questionRepository, never()).deleteById(any());
 
         System.out.println("deleteQuestion test completed successfully");
     }
 
+    @Test
+    void deleteQuestion_ShouldBumpOwningQuizVersion_AndEvictItsCaches() {
+        // Arrange
+        when(questionRepository.findQuizIdById(testQuestionId)).thenReturn(Optional.of(testQuizId));
+
+        // Act
+        questionService.deleteQuestion(testQuestionId);
+
+        // Assert
+        verify(bulkDeletionService, times(1)).deleteQuestion(testQuestionId);
+        verify(quizRepository, times(1)).incrementVersion(testQuizId);
+        verify(answerKeyCache, times(1)).evict(testQuizId);
+        verify(quizContentCache, times(1)).evict(testQuizId);
+        verify(answerKeyCache, never()).evictAll();
+    }
+
     @Test
     void createCompleteQuestion_ShouldCreateQuestionWithoutQuiz_WhenQuizIsNull() {
         // Arrange
@@ -14,6 +14,7 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +38,30 @@ class QuizAttemptServiceTest {
     @Mock
     private QuestionRepository questionRepository;
 
+    @Mock
+    private AnswerKeyCache answerKeyCache;
+
+    @Mock
+    private QuizContentCache quizContentCache;
+
+    @Mock
+    private SubmissionWriteBehindQueue submissionQueue;
+
+    @Mock
+    private SubmissionWriter submissionWriter;
+
+    @Mock
+    private AttemptExpiryScheduler expiryScheduler;
+
+    @Mock
+    private QuizStatsService quizStatsService;
+
+    @Mock
+    private OptionStatsCounters optionStatsCounters;
+
+    @Mock
+    private ActivityCounters activityCounters;
+
     @InjectMocks
     private QuizAttemptService quizAttemptService;
 
@@ -104,7 +129,9 @@ class QuizAttemptServiceTest {
         System.out.println("\n--- TEST: startQuizAttempt_ShouldCreateNewAttempt ---");
         System.out.println("Setting up mocks for starting quiz attempt");
         when(userRepository.findByClerkId("user_123")).thenReturn(Optional.of(testUser));
-        when(quizRepository.findById(1L)).thenReturn(Optional.of(testQuiz));
+        when(quizContentCache.getSnapshot(1L))
+                .thenReturn(Optional.of(QuizSnapshot.of(testQuiz, testQuiz.getQuestions())));
+        when(quizRepository.getReferenceById(1L)).thenReturn(testQuiz);
         when(quizAttemptRepository.save(any(QuizAttempt.class))).thenReturn(testAttempt);
 
         // Act
@@ -120,8 +147,10 @@ class QuizAttemptServiceTest {
         assertNotNull(attempt.getStartTime());
         assertEquals(1, attempt.getTotalQuestions());
         verify(userRepository, times(1)).findByClerkId("user_123");
-        verify(quizRepository, times(1)).findById(1L);
+        verify(quizContentCache, times(1)).getSnapshot(1L);
+        verify(quizRepository, never()).findById(1L);
         verify(quizAttemptRepository, times(1)).save(any(QuizAttempt.class));
+        verify(expiryScheduler, times(1)).track(testAttempt.getId(), testAttempt.getStartTime(), 300);
         System.out.println("startQuizAttempt test completed successfully");
     }
 
@@ -147,14 +176,14 @@ class QuizAttemptServiceTest {
         System.out.println("\n--- TEST: startQuizAttempt_ShouldThrowException_WhenQuizNotFound ---");
         System.out.println("Setting up mocks for non-existent quiz ID");
         when(userRepository.findByClerkId("user_123")).thenReturn(Optional.of(testUser));
-        when(quizRepository.findById(99L)).thenReturn(Optional.empty());
+        when(quizContentCache.getSnapshot(99L)).thenReturn(Optional.empty());
 
         // Act & Assert
         System.out.println("Expecting RuntimeException when calling startQuizAttempt with unknown quiz ID");
         Exception exception = assertThrows(RuntimeException.class, () ->
                 quizAttemptService.startQuizAttempt("user_123", 99L));
         System.out.println("Exception thrown as expected: " + exception.getMessage());
-        verify(quizRepository, times(1)).findById(99L);
+        verify(quizContentCache, times(1)).getSnapshot(99L);
         System.out.println("startQuizAttempt exception test completed successfully");
     }
 
@@ -163,10 +192,11 @@ class QuizAttemptServiceTest {
         // Arrange
         System.out.println("\n--- TEST: submitQuizAttempt_ShouldCalculateScore_WhenWithinTimeLimit ---");
         System.out.println("Setting up mocks for submitting quiz attempt");
-        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
-        when(questionRepository.findById(1L)).thenReturn(Optional.of(testQuestion));
-        when(optionRepository.findById(1L)).thenReturn(Optional.of(testOption));
-        when(responseRepository.save(any(Response.class))).thenReturn(testResponse);
+        when(quizAttemptRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testAttempt));
+        when(answerKeyCache.getAnswerKey(1L)).thenReturn(testAnswerKey());
+        when(questionRepository.getReferenceById(1L)).thenReturn(testQuestion);
+        when(optionRepository.getReferenceById(1L)).thenReturn(testOption);
+        when(responseRepository.saveAll(anyList())).thenReturn(Collections.singletonList(testResponse));
         when(quizAttemptRepository.save(any(QuizAttempt.class))).thenReturn(testAttempt);
 
         Map<Long, Long> responses = new HashMap<>();
@@ -183,12 +213,138 @@ class QuizAttemptServiceTest {
         assertEquals(1, submittedAttempt.getScore());
         assertNotNull(submittedAttempt.getEndTime());
         assertNotNull(submittedAttempt.getTimeTakenSeconds());
-        verify(quizAttemptRepository, times(1)).findById(1L);
-        verify(responseRepository, times(1)).save(any(Response.class));
+        verify(quizAttemptRepository, times(1)).findByIdForUpdate(1L);
+        verify(responseRepository, times(1)).saveAll(anyList());
+        verify(responseRepository, never()).save(any(Response.class));
         verify(quizAttemptRepository, times(1)).save(testAttempt);
+        verify(questionRepository, never()).findById(any());
+        verify(optionRepository, never()).findById(any());
+        verify(quizStatsService, times(1)).recordAttempt(eq(1L), eq(1), anyLong());
+        verify(optionStatsCounters, times(1)).recordResponses(anyList());
         System.out.println("submitQuizAttempt test completed successfully");
     }
 
+    @Test
+    void submitQuizAttempt_ShouldReplacePreviousResultInStats_WhenResubmitted() {
+        // Arrange: first submitted with a score of 0 in 90 seconds
+        testAttempt.setEndTime(LocalDateTime.now());
+        testAttempt.setScore(0);
+        testAttempt.setTimeTakenSeconds(90L);
+        when(quizAttemptRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testAttempt));
+        when(answerKeyCache.getAnswerKey(1L)).thenReturn(testAnswerKey());
+        when(quizAttemptRepository.save(any(QuizAttempt.class))).thenReturn(testAttempt);
+
+        Map<Long, Long> responses = new HashMap<>();
+        responses.put(1L, 1L);
+
+        // Act
+        quizAttemptService.submitQuizAttempt(1L, responses);
+
+        // Assert
+        verify(quizStatsService, never()).recordAttempt(any(), anyInt(), any());
+        verify(quizStatsService, times(1)).replaceAttempt(eq(1L), eq(0), eq(90L), eq(1), any());
+    }
+
+    @Test
+    void submitQuizAttempt_ShouldThrowException_WhenOptionDoesNotBelongToQuestion() {
+        // Arrange
+        when(quizAttemptRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testAttempt));
+        when(answerKeyCache.getAnswerKey(1L)).thenReturn(testAnswerKey());
+
+        Map<Long, Long> responses = new HashMap<>();
+        responses.put(1L, 42L); // Option of another question
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> quizAttemptService.submitQuizAttempt(1L, responses));
+        verify(responseRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void submitQuizAttemptWriteBehind_ShouldReturnScore_WithoutWriting() {
+        // Arrange
+        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+        when(answerKeyCache.getAnswerKey(1L)).thenReturn(testAnswerKey());
+        when(submissionQueue.claim(1L)).thenReturn(true);
+        when(submissionQueue.enqueue(any(PendingSubmission.class))).thenReturn(true);
+
+        // Act
+        QuizAttempt result = quizAttemptService.submitQuizAttemptWriteBehind(1L, Map.of(1L, 1L));
+
+        // Assert
+        assertEquals(1, result.getScore());
+        assertNotNull(result.getEndTime());
+        assertNull(testAttempt.getEndTime());
+        verify(submissionQueue, never()).release(any());
+        verify(submissionWriter, never()).persist(anyList());
+        verify(responseRepository, never()).saveAll(anyList());
+        verify(quizAttemptRepository, never()).save(any(QuizAttempt.class));
+    }
+
+    @Test
+    void submitQuizAttemptWriteBehind_ShouldWriteSynchronously_WhenQueueIsFull() {
+        // Arrange
+        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+        when(answerKeyCache.getAnswerKey(1L)).thenReturn(testAnswerKey());
+        when(submissionQueue.claim(1L)).thenReturn(true);
+        when(submissionQueue.enqueue(any(PendingSubmission.class))).thenReturn(false);
+        when(submissionWriter.persist(anyList())).thenReturn(1);
+
+        // Act
+        QuizAttempt result = quizAttemptService.submitQuizAttemptWriteBehind(1L, Map.of(1L, 1L));
+
+        // Assert
+        assertEquals(1, result.getScore());
+        verify(submissionWriter, times(1)).persist(anyList());
+        verify(submissionQueue, times(1)).release(1L);
+    }
+
+    @Test
+    void submitQuizAttemptWriteBehind_ShouldReject_WhenAttemptIsAlreadySubmitted() {
+        // Arrange
+        testAttempt.setEndTime(LocalDateTime.now());
+        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> quizAttemptService.submitQuizAttemptWriteBehind(1L, Map.of(1L, 1L)));
+        assertEquals("Quiz attempt 1 is already submitted", exception.getMessage());
+        verify(submissionQueue, never()).enqueue(any(PendingSubmission.class));
+    }
+
+    @Test
+    void submitQuizAttemptWriteBehind_ShouldReject_WhenSubmissionIsAlreadyQueued() {
+        // Arrange
+        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+        when(answerKeyCache.getAnswerKey(1L)).thenReturn(testAnswerKey());
+        when(submissionQueue.claim(1L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class,
+                () -> quizAttemptService.submitQuizAttemptWriteBehind(1L, Map.of(1L, 1L)));
+        verify(submissionQueue, never()).enqueue(any(PendingSubmission.class));
+        verify(submissionWriter, never()).persist(anyList());
+        verify(submissionQueue, never()).release(any());
+    }
+
+    @Test
+    void submitQuizAttemptWriteBehind_ShouldReject_WhenExpiryClosedTheAttemptFirst() {
+        // Arrange
+        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+        when(answerKeyCache.getAnswerKey(1L)).thenReturn(testAnswerKey());
+        when(submissionQueue.claim(1L)).thenReturn(true);
+        when(submissionQueue.enqueue(any(PendingSubmission.class))).thenReturn(false);
+        when(submissionWriter.persist(anyList())).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class,
+                () -> quizAttemptService.submitQuizAttemptWriteBehind(1L, Map.of(1L, 1L)));
+        verify(submissionQueue, times(1)).release(1L);
+    }
+
+    private AnswerKeyCache.AnswerKey testAnswerKey() {
+        return new AnswerKeyCache.AnswerKey(Set.of(1L), Set.of(1L), Map.of(1L, 1L));
+    }
+
     @Test
     void submitQuizAttempt_ShouldNotCalculateScore_WhenTimeLimitExceeded() {
         // Arrange
@@ -197,7 +353,7 @@ class QuizAttemptServiceTest {
         testAttempt.setStartTime(LocalDateTime.now().minusMinutes(10)); // Exceeds 5 minute limit
 
         System.out.println("Setting up mocks for time-exceeded submission");
-        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+        when(quizAttemptRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testAttempt));
         when(quizAttemptRepository.save(any(QuizAttempt.class))).thenReturn(testAttempt);
 
         Map<Long, Long> responses = new HashMap<>();
@@ -211,11 +367,37 @@ class QuizAttemptServiceTest {
         System.out.println("Verifying score is 0 due to time limit exceeded");
         assertEquals(0, submittedAttempt.getScore());
         assertNotNull(submittedAttempt.getEndTime());
-        verify(quizAttemptRepository, times(1)).findById(1L);
+        verify(quizAttemptRepository, times(1)).findByIdForUpdate(1L);
         verify(quizAttemptRepository, times(1)).save(testAttempt);
         System.out.println("submitQuizAttempt time limit test completed successfully");
     }
 
+    @Test
+    void getAttemptPercentile_ShouldRankScoreAmongQuizAttempts() {
+        // Arrange
+        testAttempt.setEndTime(LocalDateTime.now());
+        testAttempt.setScore(1);
+        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+        when(quizStatsService.getPercentileRank(1L, 1)).thenReturn(62.5);
+
+        // Act
+        Map<String, Object> result = quizAttemptService.getAttemptPercentile(1L);
+
+        // Assert
+        assertEquals(62.5, result.get("percentileRank"));
+        assertEquals(1L, result.get("quizId"));
+    }
+
+    @Test
+    void getAttemptPercentile_ShouldThrow_WhenAttemptIsOpen() {
+        // Arrange
+        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> quizAttemptService.getAttemptPercentile(1L));
+        verify(quizStatsService, never()).getPercentileRank(any(), anyInt());
+    }
+
     @Test
     void hasTimeLimitExceeded_ShouldReturnTrue_WhenTimeLimitExceeded() {
         // Arrange
@@ -263,7 +445,7 @@ class QuizAttemptServiceTest {
         // Arrange
         System.out.println("\n--- TEST: autoSubmitExpiredAttempt_ShouldSubmitWithZeroScore ---");
         System.out.println("Setting up mock for auto-submission");
-        when(quizAttemptRepository.findById(1L)).thenReturn(Optional.of(testAttempt));
+        when(quizAttemptRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testAttempt));
         when(quizAttemptRepository.save(any(QuizAttempt.class))).thenReturn(testAttempt);
 
         // Act
@@ -275,11 +457,45 @@ class QuizAttemptServiceTest {
         assertNotNull(result.getEndTime());
         assertEquals(0, result.getScore());
         assertNotNull(result.getTimeTakenSeconds());
-        verify(quizAttemptRepository, times(1)).findById(1L);
+        verify(quizAttemptRepository, times(1)).findByIdForUpdate(1L);
         verify(quizAttemptRepository, times(1)).save(testAttempt);
+        verify(expiryScheduler, times(1)).cancel(1L);
+        verify(quizStatsService, times(1)).recordAttempt(eq(1L), eq(0), anyLong());
+        verify(activityCounters, times(1)).record(ActivityCounters.Event.EXPIRED);
         System.out.println("autoSubmitExpiredAttempt test completed successfully");
     }
 
+    @Test
+    void autoSubmitExpiredAttempt_ShouldKeepScore_WhenAlreadySubmitted() {
+        // Arrange
+        testAttempt.setEndTime(LocalDateTime.now());
+        testAttempt.setScore(1);
+        when(quizAttemptRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testAttempt));
+
+        // Act
+        QuizAttempt result = quizAttemptService.autoSubmitExpiredAttempt(1L);
+
+        // Assert
+        assertEquals(1, result.getScore());
+        verify(quizAttemptRepository, never()).save(any(QuizAttempt.class));
+        verify(quizStatsService, never()).recordAttempt(any(), anyInt(), any());
+    }
+
+    @Test
+    void autoSubmitExpiredAttempt_ShouldLeaveAttemptOpen_WhenSubmissionIsQueued() {
+        // Arrange
+        when(quizAttemptRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testAttempt));
+        when(submissionQueue.isInFlight(1L)).thenReturn(true);
+
+        // Act
+        QuizAttempt result = quizAttemptService.autoSubmitExpiredAttempt(1L);
+
+        // Assert
+        assertNull(result.getEndTime());
+        verify(quizAttemptRepository, never()).save(any(QuizAttempt.class));
+        verify(quizStatsService, never()).recordAttempt(any(), anyInt(), any());
+    }
+
     @Test
     void getUserAttempts_ShouldReturnUserAttempts() {
         // Arrange
@@ -463,6 +679,8 @@ class QuizAttemptServiceTest {
         System.out.println("Verifying attempt and responses were deleted");
         verify(responseRepository, times(1)).deleteAll(Collections.singletonList(testResponse));
         verify(quizAttemptRepository, times(1)).deleteById(1L);
+        verify(quizStatsService, times(1)).removeAttempt(testAttempt);
+        verify(optionStatsCounters, times(1)).removeResponses(Collections.singletonList(testResponse));
         System.out.println("deleteQuizAttempt test completed successfully");
     }
 }
\ No newline at end of file
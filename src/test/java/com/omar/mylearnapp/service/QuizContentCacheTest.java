@@ -0,0 +1,167 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.Option;
+import com.omar.mylearnapp.model.Question;
+import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.repository.QuestionRepository;
+import com.omar.mylearnapp.repository.QuizRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizContentCacheTest {
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @InjectMocks
+    private QuizContentCache quizContentCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(quizContentCache, "maxBytes", 1_000_000L);
+    }
+
+    private Quiz quiz(Long id) {
+        Quiz quiz = new Quiz();
+        quiz.setId(id);
+        quiz.setTitle("Quiz " + id);
+        quiz.setTimeLimit(300);
+        return quiz;
+    }
+
+    private List<Question> questions() {
+        Question question = new Question();
+        question.setId(10L);
+        question.setText("What is 2+2?");
+        question.setOptions(Arrays.asList(
+                new Option("4", true, question),
+                new Option("5", false, question)));
+        return Collections.singletonList(question);
+    }
+
+    private void stubQuiz(Long id) {
+        when(quizRepository.findById(id)).thenReturn(Optional.of(quiz(id)));
+        when(questionRepository.findWithOptionsByQuizId(id)).thenReturn(questions());
+    }
+
+    @Test
+    void getSnapshot_ShouldLoadOnce_AndCountHitsAndMisses() {
+        // Arrange
+        stubQuiz(1L);
+
+        // Act
+        QuizSnapshot first = quizContentCache.getSnapshot(1L).orElseThrow();
+        QuizSnapshot second = quizContentCache.getSnapshot(1L).orElseThrow();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, first.getQuestionCount());
+        assertEquals(2, first.questions().get(0).options().size());
+        assertTrue(first.questions().get(0).options().get(0).correct());
+        verify(quizRepository, times(1)).findById(1L);
+        Map<String, Object> stats = quizContentCache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(1, stats.get("entries"));
+    }
+
+    @Test
+    void getSnapshot_ShouldReturnEmpty_WhenQuizNotFound() {
+        // Arrange
+        when(quizRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<QuizSnapshot> snapshot = quizContentCache.getSnapshot(99L);
+
+        // Assert
+        assertFalse(snapshot.isPresent());
+        verify(questionRepository, never()).findWithOptionsByQuizId(anyLong());
+        assertEquals(0, quizContentCache.getStats().get("entries"));
+    }
+
+    @Test
+    void evict_ShouldForceReload() {
+        // Arrange
+        stubQuiz(1L);
+        quizContentCache.getSnapshot(1L);
+
+        // Act
+        quizContentCache.evict(1L);
+        quizContentCache.getSnapshot(1L);
+
+        // Assert
+        verify(quizRepository, times(2)).findById(1L);
+        assertEquals(1L, quizContentCache.getStats().get("invalidations"));
+    }
+
+    @Test
+    void getSnapshot_ShouldEvictLeastRecentlyUsed_WhenOverSizeBound() {
+        // Arrange
+        stubQuiz(1L);
+        stubQuiz(2L);
+        stubQuiz(3L);
+        long snapshotBytes = QuizSnapshot.of(quiz(1L), questions()).estimatedBytes();
+        ReflectionTestUtils.setField(quizContentCache, "maxBytes", snapshotBytes * 2);
+
+        // Act
+        quizContentCache.getSnapshot(1L);
+        quizContentCache.getSnapshot(2L);
+        quizContentCache.getSnapshot(1L); // 2 becomes the least recently used
+        quizContentCache.getSnapshot(3L);
+        quizContentCache.getSnapshot(1L);
+        quizContentCache.getSnapshot(2L);
+
+        // Assert
+        verify(quizRepository, times(1)).findById(1L);
+        verify(quizRepository, times(2)).findById(2L);
+        Map<String, Object> stats = quizContentCache.getStats();
+        assertEquals(2, stats.get("entries"));
+        assertEquals(2L, stats.get("evictions"));
+        assertTrue((Long) stats.get("bytes") <= snapshotBytes * 2);
+    }
+
+    @Test
+    void getSnapshot_ShouldNotStore_WhenEvictedDuringLoad() {
+        // Arrange: the quiz changes while the snapshot is being read from the database
+        when(quizRepository.findById(1L)).thenAnswer(invocation -> {
+            quizContentCache.evict(1L);
+            return Optional.of(quiz(1L));
+        });
+        when(questionRepository.findWithOptionsByQuizId(1L)).thenReturn(questions());
+
+        // Act
+        Optional<QuizSnapshot> snapshot = quizContentCache.getSnapshot(1L);
+
+        // Assert
+        assertTrue(snapshot.isPresent());
+        assertEquals(0, quizContentCache.getStats().get("entries"));
+    }
+
+    @Test
+    void snapshot_ShouldBeImmutable() {
+        // Arrange
+        QuizSnapshot snapshot = QuizSnapshot.of(quiz(1L), questions());
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.questions().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.questions().get(0).options().clear());
+    }
+}
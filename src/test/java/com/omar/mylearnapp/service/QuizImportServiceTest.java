@@ -0,0 +1,142 @@
+package com.omar.mylearnapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omar.mylearnapp.model.Quiz;
+import com.omar.mylearnapp.model.User;
+import com.omar.mylearnapp.repository.QuizRepository;
+import com.omar.mylearnapp.repository.TopicRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizImportServiceTest {
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    @Mock
+    private TopicRepository topicRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private QuizImportService quizImportService;
+
+    private static final String VALID = "{\"title\":\"Quiz %d\",\"difficulty\":\"Easy\",\"topic\":{\"id\":1},"
+            + "\"questions\":[{\"text\":\"2+2?\",\"options\":[{\"text\":\"4\",\"correct\":true},{\"text\":\"5\",\"correct\":false}]}]}";
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(quizImportService, "batchSize", 2);
+        ReflectionTestUtils.setField(quizImportService, "maxErrors", 10);
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importQuizzes_ShouldInsertInBatches_AndReportBadLines() {
+        // Arrange
+        User professor = new User();
+        when(topicRepository.existsById(1L)).thenReturn(true);
+        when(quizRepository.save(any(Quiz.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Map<String, Object> report = quizImportService.importQuizzes(ndjson(
+                VALID.formatted(1),
+                "{not json",
+                "",
+                VALID.formatted(2),
+                "{\"description\":\"no title\"}",
+                VALID.formatted(3)), professor);
+
+        // Assert
+        assertEquals(5L, report.get("lines"));
+        assertEquals(3L, report.get("imported"));
+        assertEquals(2L, report.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(2, errors.get(0).get("line"));
+        assertEquals(5, errors.get(1).get("line"));
+        assertEquals("Quiz title is required", errors.get(1).get("error"));
+
+        // Two batches: quizzes 1 and 2, then quiz 3; the topic is looked up once
+        verify(transactionManager, times(2)).commit(any());
+        verify(entityManager, times(2)).clear();
+        verify(topicRepository, times(1)).existsById(1L);
+        ArgumentCaptor<Quiz> saved = ArgumentCaptor.forClass(Quiz.class);
+        verify(quizRepository, times(3)).save(saved.capture());
+        Quiz quiz = saved.getAllValues().get(0);
+        assertSame(professor, quiz.getProfessor());
+        assertSame(quiz, quiz.getQuestions().get(0).getQuiz());
+        assertSame(quiz.getQuestions().get(0), quiz.getQuestions().get(0).getOptions().get(0).getQuestion());
+        assertTrue(quiz.getQuestions().get(0).getOptions().get(0).isCorrect());
+    }
+
+    @Test
+    void importQuizzes_ShouldRetryFailedBatchOneByOne() {
+        // Arrange: the second quiz of the batch is rejected by the database
+        when(quizRepository.save(any(Quiz.class))).thenAnswer(invocation -> {
+            Quiz quiz = invocation.getArgument(0);
+            if ("Quiz 2".equals(quiz.getTitle())) {
+                throw new RuntimeException("Data too long for column 'title'");
+            }
+            return quiz;
+        });
+
+        // Act
+        Map<String, Object> report = quizImportService.importQuizzes(ndjson(
+                "{\"title\":\"Quiz 1\"}", "{\"title\":\"Quiz 2\"}"), null);
+
+        // Assert
+        assertEquals(1L, report.get("imported"));
+        assertEquals(1L, report.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(2, errors.get(0).get("line"));
+        verify(transactionManager, times(2)).rollback(any());
+        // Once after the failed batch, then once per retried quiz
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void importQuizzes_ShouldRejectUnknownTopic() {
+        // Arrange
+        when(topicRepository.existsById(1L)).thenReturn(false);
+
+        // Act
+        Map<String, Object> report = quizImportService.importQuizzes(ndjson(VALID.formatted(1)), null);
+
+        // Assert
+        assertEquals(0L, report.get("imported"));
+        assertEquals(1L, report.get("failed"));
+        verify(quizRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,134 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.QuizPurgeJob;
+import com.omar.mylearnapp.repository.QuizPurgeJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizPurgeServiceTest {
+
+    @Mock
+    private QuizPurgeJobRepository purgeJobRepository;
+
+    @Mock
+    private BulkDeletionService bulkDeletionService;
+
+    @Mock
+    private SubmissionWriteBehindQueue submissionQueue;
+
+    @Mock
+    private QuizStatsService quizStatsService;
+
+    @InjectMocks
+    private QuizPurgeService quizPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(quizPurgeService, "enabled", true);
+        ReflectionTestUtils.setField(quizPurgeService, "chunkPauseMillis", 0L);
+        ReflectionTestUtils.setField(quizPurgeService, "drainTimeoutMillis", 100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        quizPurgeService.shutdown();
+    }
+
+    @Test
+    void purge_ShouldDeleteContentAndRecordCounts() throws InterruptedException {
+        // Arrange
+        QuizPurgeJob job = new QuizPurgeJob(1L, LocalDateTime.now());
+        when(submissionQueue.awaitQuizDrained(1L, 100L)).thenReturn(true);
+        when(purgeJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(purgeJobRepository.save(any(QuizPurgeJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bulkDeletionService.deleteQuiz(1L, 0L)).thenReturn(
+                Map.of("responses", 40L, "attempts", 4L, "options", 6L, "questions", 2L, "quizzes", 1L));
+
+        // Act
+        quizPurgeService.purge(1L);
+
+        // Assert
+        assertEquals(QuizPurgeJob.Status.DONE, job.getStatus());
+        assertEquals(40L, job.getResponsesDeleted());
+        assertEquals(4L, job.getAttemptsDeleted());
+        assertEquals(6L, job.getOptionsDeleted());
+        assertEquals(2L, job.getQuestionsDeleted());
+        assertNotNull(job.getFinishedAt());
+        verify(quizStatsService, times(1)).deleteStats(1L);
+        // Queued submissions of the quiz are written before its rows are deleted
+        InOrder order = inOrder(submissionQueue, bulkDeletionService);
+        order.verify(submissionQueue).awaitQuizDrained(1L, 100L);
+        order.verify(bulkDeletionService).deleteQuiz(1L, 0L);
+        assertEquals(1L, quizPurgeService.getStats().get("completed"));
+    }
+
+    @Test
+    void purge_ShouldMarkJobFailed_WhenDeletionThrows() {
+        // Arrange
+        QuizPurgeJob job = new QuizPurgeJob(1L, LocalDateTime.now());
+        when(purgeJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(purgeJobRepository.save(any(QuizPurgeJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bulkDeletionService.deleteQuiz(1L, 0L)).thenThrow(new RuntimeException("Lock wait timeout"));
+
+        // Act
+        quizPurgeService.purge(1L);
+
+        // Assert
+        assertEquals(QuizPurgeJob.Status.FAILED, job.getStatus());
+        assertEquals("Lock wait timeout", job.getLastError());
+        verify(quizStatsService, never()).deleteStats(anyLong());
+        assertEquals(1L, quizPurgeService.getStats().get("failed"));
+    }
+
+    @Test
+    void purge_ShouldSkipFinishedJobs() {
+        // Arrange
+        QuizPurgeJob job = new QuizPurgeJob(1L, LocalDateTime.now());
+        job.setStatus(QuizPurgeJob.Status.DONE);
+        when(purgeJobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // Act
+        quizPurgeService.purge(1L);
+
+        // Assert
+        verify(bulkDeletionService, never()).deleteQuiz(anyLong(), anyLong());
+        verify(purgeJobRepository, never()).save(any());
+    }
+
+    @Test
+    void resume_ShouldResubmitUnfinishedJobs() {
+        // Arrange: one job interrupted while running, one that failed
+        QuizPurgeJob interrupted = new QuizPurgeJob(1L, LocalDateTime.now());
+        interrupted.setStatus(QuizPurgeJob.Status.RUNNING);
+        QuizPurgeJob failed = new QuizPurgeJob(2L, LocalDateTime.now());
+        failed.setStatus(QuizPurgeJob.Status.FAILED);
+        when(purgeJobRepository.findByStatusIn(any())).thenReturn(Arrays.asList(interrupted, failed));
+        when(purgeJobRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        // Act
+        quizPurgeService.resume();
+
+        // Assert
+        verify(purgeJobRepository, timeout(1000)).findById(1L);
+        verify(purgeJobRepository, timeout(1000)).findById(2L);
+        assertEquals(2L, quizPurgeService.getStats().get("scheduled"));
+    }
+}
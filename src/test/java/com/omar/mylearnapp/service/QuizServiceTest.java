@@ -1,5 +1,7 @@
 package com.omar.mylearnapp.service;
 
+import com.omar.mylearnapp.dto.CursorPage;
+import com.omar.mylearnapp.dto.QuizSummary;
 import com.omar.mylearnapp.model.*;
 import com.omar.mylearnapp.repository.*;
 import jakarta.transaction.Transactional;
@@ -9,13 +11,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +53,27 @@ class QuizServiceTest {
     @Mock
     private QuizAttemptRepository quizAttemptRepository;
 
+    @Mock
+    private AnswerKeyCache answerKeyCache;
+
+    @Mock
+    private QuizContentCache quizContentCache;
+
+    @Mock
+    private QuizPurgeService quizPurgeService;
+
+    @Mock
+    private BulkDeletionService bulkDeletionService;
+
+    @Mock
+    private AttemptExpiryScheduler expiryScheduler;
+
+    @Mock
+    private QuestionOptionStatsRepository optionStatsRepository;
+
+    @Mock
+    private OptionStatsCounters optionStatsCounters;
+
     @InjectMocks
     private QuizService quizService;
 
@@ -112,6 +143,75 @@ class QuizServiceTest {
         System.out.println("getAllQuizzes test completed successfully");
     }
 
+    @Test
+    void getQuizzesPage_ShouldReturnNextCursor_WhenMoreRowsExist() {
+        // Arrange
+        List<QuizSummary> rows = Arrays.asList(summary(1L), summary(2L), summary(3L));
+        when(quizRepository.findSummariesAfter(0L, Limit.of(3))).thenReturn(rows);
+
+        // Act
+        CursorPage<QuizSummary> page = quizService.getQuizzesPage(null, 2);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertEquals(2L, page.getNextCursor());
+        verify(quizRepository, never()).findAll();
+    }
+
+    @Test
+    void getQuizzesPage_ShouldReturnNoCursor_OnLastPage() {
+        // Arrange
+        List<QuizSummary> rows = Collections.singletonList(summary(2L));
+        when(quizRepository.findSummariesAfter(1L, Limit.of(QuizService.DEFAULT_PAGE_SIZE + 1))).thenReturn(rows);
+
+        // Act
+        CursorPage<QuizSummary> page = quizService.getQuizzesPage(1L, null);
+
+        // Assert
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void getQuizzesPage_ShouldReturnLargestPageWithCursor_WithoutAfterNorLimit() {
+        // Arrange
+        List<QuizSummary> rows = new ArrayList<>();
+        for (long id = 1; id <= QuizService.MAX_PAGE_SIZE + 1; id++) {
+            rows.add(summary(id));
+        }
+        when(quizRepository.findSummariesAfter(0L, Limit.of(QuizService.MAX_PAGE_SIZE + 1))).thenReturn(rows);
+
+        // Act
+        CursorPage<QuizSummary> page = quizService.getQuizzesPage(null, null);
+
+        // Assert
+        assertEquals(QuizService.MAX_PAGE_SIZE, page.getItems().size());
+        assertEquals((long) QuizService.MAX_PAGE_SIZE, page.getNextCursor());
+    }
+
+    @Test
+    void getQuizSummariesByProfessor_ShouldUseSummaryQuery() {
+        // Arrange
+        List<QuizSummary> rows = Collections.singletonList(summary(1L));
+        when(quizRepository.findSummariesByProfessorId(5L)).thenReturn(rows);
+
+        // Act
+        List<QuizSummary> result = quizService.getQuizSummariesByProfessor(5L);
+
+        // Assert
+        assertEquals(rows, result);
+        verify(quizRepository, never()).findByProfessorId(anyLong());
+    }
+
+    @Test
+    void getQuizzesByTopicPage_ShouldThrowException_WhenTopicNotFound() {
+        // Arrange
+        when(topicRepository.existsById(99L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> quizService.getQuizzesByTopicPage(99L, null, 10));
+    }
+
     @Test
     void getQuizById_ShouldReturnQuiz_WhenExists() {
         // Arrange
@@ -132,6 +232,33 @@ class QuizServiceTest {
         System.out.println("getQuizById test completed successfully");
     }
 
+    @Test
+    void getQuizDetail_ShouldLoadOptionsWithSecondQuery_WhenExists() {
+        // Arrange
+        when(quizRepository.findDetailById(1L)).thenReturn(Optional.of(testQuiz));
+
+        // Act
+        Optional<Quiz> detail = quizService.getQuizDetail(1L);
+
+        // Assert
+        assertTrue(detail.isPresent());
+        verify(questionRepository, times(1)).findWithOptionsByQuizId(1L);
+        verify(quizRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getQuizDetail_ShouldSkipOptionsQuery_WhenNotExists() {
+        // Arrange
+        when(quizRepository.findDetailById(99L)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<Quiz> detail = quizService.getQuizDetail(99L);
+
+        // Assert
+        assertFalse(detail.isPresent());
+        verify(questionRepository, never()).findWithOptionsByQuizId(anyLong());
+    }
+
     @Test
     void getQuizById_ShouldReturnEmpty_WhenNotExists() {
         // Arrange
@@ -350,6 +477,37 @@ class QuizServiceTest {
         System.out.println("updateQuiz test completed successfully");
     }
 
+    @Test
+    void updateQuiz_ShouldBumpVersion_AndEvictCaches() {
+        // Arrange
+        testQuiz.setVersion(4L);
+        Quiz details = new Quiz();
+        details.setTitle("Renamed");
+        when(quizRepository.findById(1L)).thenReturn(Optional.of(testQuiz));
+        when(quizRepository.save(testQuiz)).thenReturn(testQuiz);
+
+        // Act
+        Quiz result = quizService.updateQuiz(1L, details);
+
+        // Assert
+        assertEquals(5L, result.getVersion());
+        verify(answerKeyCache, times(1)).evict(1L);
+        verify(quizContentCache, times(1)).evict(1L);
+    }
+
+    @Test
+    void getCatalogFingerprint_ShouldCombineQuizAndTopicFingerprints() {
+        // Arrange
+        when(quizRepository.findCatalogFingerprint()).thenReturn(Collections.singletonList(new Object[]{3L, 12L, 7L}));
+        when(topicRepository.findFingerprint()).thenReturn(Collections.singletonList(new Object[]{2L, 5L, 1L}));
+
+        // Act
+        String fingerprint = quizService.getCatalogFingerprint();
+
+        // Assert
+        assertEquals("3.12.7-2.5.1", fingerprint);
+    }
+
     @Test
     void updateQuiz_ShouldThrowException_WhenQuizNotFound() {
         // Arrange
@@ -370,29 +528,47 @@ class QuizServiceTest {
         // Arrange
         System.out.println("\n--- TEST: deleteQuiz_ShouldDeleteQuizAndDependencies ---");
         System.out.println("Setting up mocks for quiz deletion");
-        when(quizRepository.findById(1L)).thenReturn(Optional.of(testQuiz));
-        when(quizAttemptRepository.findByQuizId(1L)).thenReturn(Collections.emptyList());
-        when(responseRepository.findByQuestionId(1L)).thenReturn(Collections.emptyList());
+        QuizPurgeJob job = new QuizPurgeJob(1L, LocalDateTime.now());
+        when(quizRepository.tombstone(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(quizPurgeService.schedule(1L)).thenReturn(job);
 
         // Act
         System.out.println("Calling quizService.deleteQuiz(1L)");
-        quizService.deleteQuiz(1L);
+        QuizPurgeJob result = quizService.deleteQuiz(1L);
 
         // Assert
-        System.out.println("Verifying deletion operations were performed");
-        verify(quizAttemptRepository, times(1)).findByQuizId(1L);
-        System.out.println("Verified no quiz attempts found");
-        verify(responseRepository, atLeastOnce()).findByQuestionId(1L);
-        System.out.println("Verified no responses found for questions");
-        verify(questionRepository, times(1)).delete(testQuestion);
-        System.out.println("Verified question deletion");
-        verify(optionRepository, times(1)).delete(testOption);
-        System.out.println("Verified option deletion");
-        verify(quizRepository, times(1)).delete(testQuiz);
-        System.out.println("Verified quiz deletion");
+        System.out.println("Verifying the quiz was tombstoned and its purge scheduled");
+        assertSame(job, result);
+        assertEquals(QuizPurgeJob.Status.PENDING, result.getStatus());
+        verify(answerKeyCache, times(1)).evict(1L);
+        verify(quizContentCache, times(1)).evict(1L);
+        // Dependencies are purged by the background job, not in the request
+        verify(bulkDeletionService, never()).deleteQuiz(anyLong());
+        verify(quizAttemptRepository, never()).findByQuizId(anyLong());
+        verify(quizRepository, never()).delete(any());
+        verify(quizAttemptRepository, never()).closeOpenAttempts(anyLong(), any());
         System.out.println("deleteQuiz test completed successfully");
     }
 
+    @Test
+    void deleteQuiz_ShouldCloseOpenAttempts() {
+        // Arrange
+        System.out.println("\n--- TEST: deleteQuiz_ShouldCloseOpenAttempts ---");
+        when(quizRepository.tombstone(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(quizAttemptRepository.findOpenIdsByQuizId(1L)).thenReturn(List.of(10L, 11L));
+        when(quizPurgeService.schedule(1L)).thenReturn(new QuizPurgeJob(1L, LocalDateTime.now()));
+
+        // Act
+        System.out.println("Calling quizService.deleteQuiz(1L) with two attempts in progress");
+        quizService.deleteQuiz(1L);
+
+        // Assert
+        verify(quizAttemptRepository, times(1)).closeOpenAttempts(eq(1L), any(LocalDateTime.class));
+        verify(expiryScheduler, times(1)).cancel(10L);
+        verify(expiryScheduler, times(1)).cancel(11L);
+        System.out.println("deleteQuiz open attempts test completed successfully");
+    }
+
     @Test
     void createQuizForProfessor_ShouldCreateQuiz_WhenUserIsProfessor() {
         // Arrange
@@ -482,14 +658,23 @@ class QuizServiceTest {
         System.out.println("updateProfessorQuiz exception test completed successfully");
     }
 
+    @Test
+    void deleteQuiz_ShouldThrowException_WhenQuizNotFound() {
+        // Arrange
+        when(quizRepository.tombstone(eq(99L), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> quizService.deleteQuiz(99L));
+        verify(quizPurgeService, never()).schedule(anyLong());
+    }
+
     @Test
     void deleteProfessorQuiz_ShouldDeleteQuiz_WhenProfessorIsOwner() {
         // Arrange
         System.out.println("\n--- TEST: deleteProfessorQuiz_ShouldDeleteQuiz_WhenProfessorIsOwner ---");
         System.out.println("Setting up mocks for professor quiz deletion");
         when(quizRepository.findById(1L)).thenReturn(Optional.of(testQuiz));
-        when(quizAttemptRepository.findByQuizId(1L)).thenReturn(Collections.emptyList());
-        when(responseRepository.findByQuestionId(1L)).thenReturn(Collections.emptyList());
+        when(quizRepository.tombstone(eq(1L), any(LocalDateTime.class))).thenReturn(1);
 
         // Act
         System.out.println("Calling quizService.deleteProfessorQuiz(1L, 1L)");
@@ -497,7 +682,7 @@ class QuizServiceTest {
 
         // Assert
         System.out.println("Verifying quiz was deleted");
-        verify(quizRepository, times(1)).delete(testQuiz);
+        verify(quizPurgeService, times(1)).schedule(1L);
         System.out.println("deleteProfessorQuiz test completed successfully");
     }
 
@@ -570,7 +755,6 @@ class QuizServiceTest {
         System.out.println("Setting up mocks for question update");
         when(questionRepository.findById(1L)).thenReturn(Optional.of(testQuestion));
         when(questionRepository.save(any(Question.class))).thenReturn(updatedQuestion);
-        when(responseRepository.findAll()).thenReturn(Collections.emptyList());
 
         // Act
         System.out.println("Calling quizService.updateQuestion(1L, updatedQuestion, 1L)");
@@ -581,9 +765,54 @@ class QuizServiceTest {
         assertEquals("Updated Question", result.getText());
         System.out.println("Updated question text: " + result.getText());
         verify(questionRepository, times(1)).save(any(Question.class));
+        verify(responseRepository, never()).findAll();
+        verify(optionRepository, never()).delete(any());
         System.out.println("updateQuestion test completed successfully");
     }
 
+    @Test
+    void updateQuestion_ShouldKeepUnchangedOptions_AndDeleteOnlyRemovedOnes() {
+        // Arrange: stored options 1 "Test Option", 2 "Old", 3 "Same text"
+        Option removed = new Option("Old", false, testQuestion);
+        removed.setId(2L);
+        Option sameText = new Option("Same text", false, testQuestion);
+        sameText.setId(3L);
+        testQuestion.setOptions(Arrays.asList(testOption, removed, sameText));
+
+        Option edited = new Option("Edited", false, null);
+        edited.setId(1L);
+        Option resent = new Option("Same text", true, null);
+        Option added = new Option("New", false, null);
+        added.setId(99L);
+        Question details = new Question();
+        details.setText("Updated Question");
+        details.setOptions(Arrays.asList(edited, resent, added));
+
+        when(questionRepository.findById(1L)).thenReturn(Optional.of(testQuestion));
+        when(optionRepository.save(any(Option.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(questionRepository.save(any(Question.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Question result = quizService.updateQuestion(1L, details, 1L);
+
+        // Assert
+        List<Option> options = result.getOptions();
+        assertEquals(3, options.size());
+        assertSame(testOption, options.get(0));
+        assertEquals("Edited", testOption.getText());
+        assertFalse(testOption.isCorrect());
+        assertSame(sameText, options.get(1));
+        assertTrue(sameText.isCorrect());
+        assertNull(added.getId());
+        assertSame(testQuestion, added.getQuestion());
+        verify(responseRepository, times(1)).deleteBySelectedOptionIdIn(Set.of(2L));
+        verify(optionRepository, times(1)).deleteAllByIdInBatch(Set.of(2L));
+        verify(optionStatsRepository, times(1)).deleteAllById(Set.of(2L));
+        verify(optionStatsCounters, times(1)).discardOptions(testQuestion.getId(), Set.of(2L));
+        verify(optionRepository, times(1)).save(added);
+        verify(responseRepository, never()).findAll();
+    }
+
     @Test
     void updateQuestion_ShouldThrowException_WhenProfessorIsNotOwner() {
         // Arrange
@@ -606,7 +835,6 @@ class QuizServiceTest {
         System.out.println("\n--- TEST: deleteQuestion_ShouldDeleteQuestion_WhenProfessorIsOwner ---");
         System.out.println("Setting up mocks for question deletion");
         when(questionRepository.findById(1L)).thenReturn(Optional.of(testQuestion));
-        when(responseRepository.findByQuestionId(1L)).thenReturn(Collections.emptyList());
 
         // Act
         System.out.println("Calling quizService.deleteQuestion(1L, 1L)");
@@ -614,7 +842,9 @@ class QuizServiceTest {
 
         // Assert
         System.out.println("Verifying question was deleted");
-        verify(questionRepository, times(1)).delete(testQuestion);
+        verify(bulkDeletionService, times(1)).deleteQuestion(1L);
+        verify(quizRepository, times(1)).incrementVersion(1L);
+        verify(quizContentCache, times(1)).evict(1L);
         System.out.println("deleteQuestion test completed successfully");
     }
 
@@ -632,4 +862,10 @@ class QuizServiceTest {
         verify(questionRepository, times(1)).findById(1L);
         System.out.println("deleteQuestion exception test completed successfully");
     }
+
+    private QuizSummary summary(Long id) {
+        QuizSummary summary = mock(QuizSummary.class);
+        lenient().when(summary.getId()).thenReturn(id);
+        return summary;
+    }
 }
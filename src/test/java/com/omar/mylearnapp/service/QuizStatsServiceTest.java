@@ -0,0 +1,128 @@
+package com.omar.mylearnapp.service;
+
+import com.omar.mylearnapp.model.QuizHistogramBucket;
+import com.omar.mylearnapp.repository.QuizHistogramRepository;
+import com.omar.mylearnapp.repository.QuizStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizStatsServiceTest {
+
+    @Mock
+    private QuizStatsRepository quizStatsRepository;
+
+    @Mock
+    private QuizHistogramRepository histogramRepository;
+
+    @InjectMocks
+    private QuizStatsService quizStatsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(quizStatsService, "timeBucketSeconds", 30);
+        ReflectionTestUtils.setField(quizStatsService, "timeBuckets", 10);
+    }
+
+    private static QuizHistogramBucket bucket(String type, int bucket, long count) {
+        return new QuizHistogramBucket(1L, type, bucket, count);
+    }
+
+    // Ten attempts: scores 1, 2, 2, 3, 3, 3, 3, 4, 4, 5
+    private List<QuizHistogramBucket> scores() {
+        return Arrays.asList(
+                bucket(QuizHistogramBucket.SCORE, 1, 1),
+                bucket(QuizHistogramBucket.SCORE, 2, 2),
+                bucket(QuizHistogramBucket.SCORE, 3, 4),
+                bucket(QuizHistogramBucket.SCORE, 4, 2),
+                bucket(QuizHistogramBucket.SCORE, 5, 1));
+    }
+
+    @Test
+    void recordAttempt_ShouldUpdateAggregateAndBothHistograms() {
+        // Act
+        quizStatsService.recordAttempt(1L, 4, 95L);
+        quizStatsService.recordAttempt(1L, 2, 10_000L);
+
+        // Assert
+        verify(quizStatsRepository).recordAttempt(1L, 4, 95L);
+        verify(histogramRepository).addToBucket(1L, QuizHistogramBucket.SCORE, 4, 1);
+        verify(histogramRepository).addToBucket(1L, QuizHistogramBucket.TIME, 3, 1);
+        // Beyond the last bucket, counted in the open-ended one
+        verify(histogramRepository).addToBucket(1L, QuizHistogramBucket.TIME, 9, 1);
+    }
+
+    @Test
+    void replaceAttempt_ShouldSwapPreviousResultForNewOne() {
+        // Act
+        quizStatsService.replaceAttempt(1L, 2, 95L, 4, 35L);
+
+        // Assert
+        verify(quizStatsRepository).removeAttempt(1L, 2, 95L);
+        verify(histogramRepository).addToBucket(1L, QuizHistogramBucket.SCORE, 2, -1);
+        verify(histogramRepository).addToBucket(1L, QuizHistogramBucket.TIME, 3, -1);
+        verify(quizStatsRepository).recordAttempt(1L, 4, 35L);
+        verify(histogramRepository).addToBucket(1L, QuizHistogramBucket.SCORE, 4, 1);
+        verify(histogramRepository).addToBucket(1L, QuizHistogramBucket.TIME, 1, 1);
+    }
+
+    @Test
+    void getDistribution_ShouldComputePercentilesFromBuckets() {
+        // Arrange
+        when(histogramRepository.findByQuizIdAndTypeOrderByBucket(1L, QuizHistogramBucket.SCORE)).thenReturn(scores());
+        when(histogramRepository.findByQuizIdAndTypeOrderByBucket(1L, QuizHistogramBucket.TIME)).thenReturn(Arrays.asList(
+                bucket(QuizHistogramBucket.TIME, 1, 9),
+                bucket(QuizHistogramBucket.TIME, 9, 1)));
+
+        // Act
+        Map<String, Object> distribution = quizStatsService.getDistribution(1L);
+
+        // Assert
+        assertEquals(10L, distribution.get("attempts"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> scorePercentiles = (Map<String, Object>) distribution.get("scorePercentiles");
+        assertEquals(3, scorePercentiles.get("p50"));
+        assertEquals(4, scorePercentiles.get("p90"));
+        assertEquals(5, scorePercentiles.get("p99"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> timePercentiles = (Map<String, Object>) distribution.get("timePercentiles");
+        assertEquals(60L, timePercentiles.get("p90"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> timeHistogram = (List<Map<String, Object>>) distribution.get("timeHistogram");
+        assertNull(timeHistogram.get(1).get("toSeconds"));
+    }
+
+    @Test
+    void getPercentileRank_ShouldCountHalfOfTies() {
+        // Arrange
+        when(histogramRepository.findByQuizIdAndTypeOrderByBucket(1L, QuizHistogramBucket.SCORE)).thenReturn(scores());
+
+        // Act
+        Double rank = quizStatsService.getPercentileRank(1L, 3);
+
+        // Assert: 3 attempts below and 4 equal, (3 + 2) / 10
+        assertEquals(50.0, rank);
+    }
+
+    @Test
+    void getPercentileRank_ShouldReturnNull_WhenNoAttempts() {
+        // Arrange
+        when(histogramRepository.findByQuizIdAndTypeOrderByBucket(1L, QuizHistogramBucket.SCORE)).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertNull(quizStatsService.getPercentileRank(1L, 3));
+    }
+}
@@ -0,0 +1,50 @@
+package com.omar.mylearnapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizStreamParserTest {
+
+    private static final String QUIZ = "```json\n{\"title\": \"Tableaux [] et {}\", \"description\": \"\\\"questions\\\"\","
+            + " \"questions\": [{\"text\": \"Indice } ?\", \"options\": [{\"text\": \"0\", \"isCorrect\": true}]},"
+            + " {\"text\": \"Taille\", \"options\": [{\"text\": \"length\", \"isCorrect\": true}]}]}\n```";
+
+    @Test
+    void feed_ShouldEmitEachQuestion_WhateverTheFragmentBoundaries() {
+        // Arrange
+        List<String> questions = new ArrayList<>();
+        QuizStreamParser parser = new QuizStreamParser(questions::add);
+
+        // Act: one character per fragment
+        for (char c : QUIZ.toCharArray()) {
+            parser.feed(String.valueOf(c));
+        }
+
+        // Assert
+        assertEquals(List.of(
+                "{\"text\": \"Indice } ?\", \"options\": [{\"text\": \"0\", \"isCorrect\": true}]}",
+                "{\"text\": \"Taille\", \"options\": [{\"text\": \"length\", \"isCorrect\": true}]}"
+        ), questions);
+        assertEquals(QUIZ, parser.getText());
+    }
+
+    @Test
+    void feed_ShouldEmitQuestion_AsSoonAsItIsClosed() {
+        // Arrange
+        List<String> questions = new ArrayList<>();
+        QuizStreamParser parser = new QuizStreamParser(questions::add);
+
+        // Act
+        parser.feed("{\"title\": \"T\", \"questions\": [{\"text\": \"Q1\", \"options\": []");
+        int beforeClose = questions.size();
+        parser.feed("}, {\"text\": \"Q2\"");
+
+        // Assert
+        assertEquals(0, beforeClose);
+        assertEquals(List.of("{\"text\": \"Q1\", \"options\": []}"), questions);
+    }
+}
@@ -1,8 +1,10 @@
 package com.omar.mylearnapp.service;
 
+import com.omar.mylearnapp.dto.MissedQuestionReport;
 import com.omar.mylearnapp.model.Question;
 import com.omar.mylearnapp.model.Quiz;
 import com.omar.mylearnapp.model.QuizAttempt;
+import com.omar.mylearnapp.model.QuizStats;
 import com.omar.mylearnapp.repository.QuestionRepository;
 import com.omar.mylearnapp.repository.QuizAttemptRepository;
 import com.omar.mylearnapp.repository.QuizRepository;
@@ -13,12 +15,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +41,18 @@ class StatisticsServiceTest {
     @Mock
     private ResponseRepository responseRepository;
 
+    @Mock
+    private QuizContentCache quizContentCache;
+
+    @Mock
+    private QuizStatsService quizStatsService;
+
+    @Mock
+    private OptionStatsCounters optionStatsCounters;
+
+    @Mock
+    private ActivityCounters activityCounters;
+
     @InjectMocks
     private StatisticsService statisticsService;
 
@@ -60,20 +77,23 @@ class StatisticsServiceTest {
         Long quizId = 1L;
 
         // Mock repository responses
-        when(quizRepository.findById(quizId)).thenReturn(Optional.of(testQuiz));
-        when(quizAttemptRepository.countAttemptsByQuizId(quizId)).thenReturn(10L);
-        when(quizAttemptRepository.getAverageScoreByQuizId(quizId)).thenReturn(75.5);
-        when(quizAttemptRepository.getAverageTimeByQuizId(quizId)).thenReturn(120.0);
-
-        // Mock most missed questions response
-        List<Map<String, Object>> missedQuestions = new ArrayList<>();
-        Map<String, Object> missedQuestion = new HashMap<>();
-        missedQuestion.put("questionId", 1L);
-        missedQuestion.put("missedCount", 5L);
-        missedQuestions.add(missedQuestion);
-
-        when(responseRepository.findMostMissedQuestionsByQuizId(quizId)).thenReturn(missedQuestions);
-        when(questionRepository.findById(1L)).thenReturn(Optional.of(testQuestion));
+        when(quizContentCache.getSnapshot(quizId))
+                .thenReturn(Optional.of(QuizSnapshot.of(testQuiz, Collections.singletonList(testQuestion))));
+        QuizStats stats = new QuizStats();
+        stats.setQuizId(quizId);
+        stats.setAttemptCount(10);
+        stats.setScoreSum(755);
+        // Five scores of 73 and five of 78
+        stats.setScoreSquareSum(5 * 73 * 73 + 5 * 78 * 78);
+        stats.setTimeSum(1200);
+        stats.setMinScore(73);
+        stats.setMaxScore(78);
+        when(quizStatsService.getStats(quizId)).thenReturn(stats);
+
+        // Mock most missed questions report, text included by the query
+        MissedQuestionReport missedQuestion = new MissedQuestionReport(1L, "What is 2+2?", 5L, 20L);
+        when(responseRepository.findMissedQuestionReport(quizId, Limit.unlimited()))
+                .thenReturn(Collections.singletonList(missedQuestion));
 
         // Act
         Map<String, Object> result = statisticsService.getQuizStatistics(quizId);
@@ -85,19 +105,61 @@ class StatisticsServiceTest {
         assertEquals(10L, result.get("totalAttempts"));
         assertEquals(75.5, result.get("averageScore"));
         assertEquals(120.0, result.get("averageTimeSeconds"));
+        assertEquals(2.5, (Double) result.get("scoreStdDev"), 1e-9);
+        assertEquals(73, result.get("minScore"));
+        assertEquals(78, result.get("maxScore"));
+        verify(quizAttemptRepository, never()).countAttemptsByQuizId(any());
 
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> mostMissed = (List<Map<String, Object>>) result.get("mostMissedQuestions");
         assertNotNull(mostMissed);
         assertEquals(1, mostMissed.size());
+        assertEquals(1L, mostMissed.get(0).get("questionId"));
+        assertEquals(5L, mostMissed.get(0).get("count"));
         assertEquals("What is 2+2?", mostMissed.get(0).get("questionText"));
+        assertEquals(3, mostMissed.get(0).size());
+        verify(questionRepository, never()).findById(any());
+    }
+
+    @Test
+    void getMostMissedQuestions_ShouldAttachOptionBreakdown_WhenRequested() {
+        // Arrange
+        MissedQuestionReport first = new MissedQuestionReport(1L, "What is 2+2?", 5L, 20L);
+        MissedQuestionReport second = new MissedQuestionReport(2L, "What is 3+3?", 2L, 20L);
+        when(responseRepository.findMissedQuestionReport(1L, Limit.of(2))).thenReturn(Arrays.asList(first, second));
+        when(responseRepository.findMissedOptionCounts(any())).thenReturn(Arrays.asList(
+                new MissedQuestionReport.OptionMisses(1L, 11L, "5", 4L),
+                new MissedQuestionReport.OptionMisses(1L, 12L, "6", 1L),
+                new MissedQuestionReport.OptionMisses(2L, 21L, "7", 2L)));
+
+        // Act
+        List<MissedQuestionReport> report = statisticsService.getMostMissedQuestions(1L, 2, true);
+
+        // Assert
+        assertEquals(2, report.get(0).getOptions().size());
+        assertEquals(4L, report.get(0).getOptions().get(0).getCount());
+        assertEquals(1, report.get(1).getOptions().size());
+    }
+
+    @Test
+    void getMostMissedQuestions_ShouldCapLimit() {
+        // Arrange
+        when(responseRepository.findMissedQuestionReport(1L, Limit.of(StatisticsService.MAX_MISSED_LIMIT)))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        List<MissedQuestionReport> report = statisticsService.getMostMissedQuestions(1L, 10_000, true);
+
+        // Assert
+        assertTrue(report.isEmpty());
+        verify(responseRepository, never()).findMissedOptionCounts(any());
     }
 
     @Test
     void getQuizStatistics_ShouldThrowException_WhenQuizNotFound() {
         // Arrange
         Long quizId = 99L;
-        when(quizRepository.findById(quizId)).thenReturn(Optional.empty());
+        when(quizContentCache.getSnapshot(quizId)).thenReturn(Optional.empty());
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -111,20 +173,21 @@ class StatisticsServiceTest {
     void getQuestionStatistics_ShouldReturnCompleteStats_WhenQuestionExists() {
         // Arrange
         Long questionId = 1L;
-
-        // Mock repository responses
+        testQuestion.setQuiz(testQuiz);
+        QuizSnapshot.QuestionSnapshot question = new QuizSnapshot.QuestionSnapshot(questionId, "What is 2+2?", Arrays.asList(
+                new QuizSnapshot.OptionSnapshot(10L, "4", true),
+                new QuizSnapshot.OptionSnapshot(11L, "5", false),
+                new QuizSnapshot.OptionSnapshot(12L, "6", false)));
+        QuizSnapshot quiz = new QuizSnapshot(1L, 0L, "Test Quiz", null, null, null, null, null, 0,
+                null, null, null, Collections.singletonList(question));
+
+        Map<Long, long[]> counts = new HashMap<>();
+        counts.put(10L, new long[]{75L, 75L});
+        counts.put(11L, new long[]{25L, 0L});
+        counts.put(99L, new long[]{40L, 0L}); // option deleted since
         when(questionRepository.findById(questionId)).thenReturn(Optional.of(testQuestion));
-        when(responseRepository.countTotalResponsesByQuestionId(questionId)).thenReturn(100L);
-        when(responseRepository.countCorrectResponsesByQuestionId(questionId)).thenReturn(75L);
-
-        // Mock option distribution response
-        List<Map<String, Object>> optionCounts = new ArrayList<>();
-        Map<String, Object> option1 = new HashMap<>();
-        option1.put("optionText", "4");
-        option1.put("responseCount", 75L);
-        optionCounts.add(option1);
-
-        when(responseRepository.countResponsesByOptionForQuestion(questionId)).thenReturn(optionCounts);
+        when(quizContentCache.getSnapshot(1L)).thenReturn(Optional.of(quiz));
+        when(optionStatsCounters.getCounts(questionId)).thenReturn(counts);
 
         // Act
         Map<String, Object> result = statisticsService.getQuestionStatistics(questionId);
@@ -140,8 +203,10 @@ class StatisticsServiceTest {
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> distribution = (List<Map<String, Object>>) result.get("optionDistribution");
         assertNotNull(distribution);
-        assertEquals(1, distribution.size());
+        assertEquals(2, distribution.size());
         assertEquals("4", distribution.get(0).get("optionText"));
+        assertEquals(75L, distribution.get(0).get("count"));
+        verify(responseRepository, never()).countTotalResponsesByQuestionId(any());
     }
 
     @Test
@@ -150,9 +215,7 @@ class StatisticsServiceTest {
         Long questionId = 1L;
 
         when(questionRepository.findById(questionId)).thenReturn(Optional.of(testQuestion));
-        when(responseRepository.countTotalResponsesByQuestionId(questionId)).thenReturn(0L);
-        when(responseRepository.countCorrectResponsesByQuestionId(questionId)).thenReturn(0L);
-        when(responseRepository.countResponsesByOptionForQuestion(questionId)).thenReturn(Collections.emptyList());
+        when(optionStatsCounters.getCounts(questionId)).thenReturn(Collections.emptyMap());
 
         // Act
         Map<String, Object> result = statisticsService.getQuestionStatistics(questionId);
@@ -167,14 +230,10 @@ class StatisticsServiceTest {
     @Test
     void getSystemStatistics_ShouldReturnCompleteStats() {
         // Arrange
-        when(quizRepository.count()).thenReturn(50L);
+        when(quizRepository.countQuizzes()).thenReturn(50L);
         when(quizAttemptRepository.count()).thenReturn(1000L);
 
-        // Correct mock setup - properly closed parentheses
-        when(quizAttemptRepository.findByStartTimeBetween(
-                any(LocalDateTime.class),
-                any(LocalDateTime.class)
-        )).thenReturn(Arrays.asList(testAttempt, testAttempt, testAttempt));
+        when(activityCounters.count(ActivityCounters.Event.STARTED, Duration.ofDays(7))).thenReturn(3L);
 
         // Act
         Map<String, Object> result = statisticsService.getSystemStatistics();
@@ -184,21 +243,16 @@ class StatisticsServiceTest {
         assertEquals(50L, result.get("totalQuizzes"));
         assertEquals(1000L, result.get("totalAttempts"));
         assertEquals(3L, result.get("recentAttempts"));
+        verify(quizAttemptRepository, never()).findByStartTimeBetween(any(), any());
     }
 
 
     @Test
     void getSystemStatistics_ShouldHandleEmptyData() {
         // Arrange
-        when(quizRepository.count()).thenReturn(0L);
+        when(quizRepository.countQuizzes()).thenReturn(0L);
         when(quizAttemptRepository.count()).thenReturn(0L);
 
-        // Use any() matchers for time parameters
-        when(quizAttemptRepository.findByStartTimeBetween(
-                any(LocalDateTime.class),
-                any(LocalDateTime.class)
-        )).thenReturn(Collections.emptyList());
-
         // Act
         Map<String, Object> result = statisticsService.getSystemStatistics();
 
@@ -0,0 +1,169 @@
+package com.omar.mylearnapp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubmissionWriteBehindQueueTest {
+
+    @Mock
+    private SubmissionWriter submissionWriter;
+
+    @InjectMocks
+    private SubmissionWriteBehindQueue submissionQueue;
+
+    @TempDir
+    Path tempDir;
+
+    private Path journal;
+    private Path deadLetter;
+
+    @BeforeEach
+    void setUp() {
+        journal = tempDir.resolve("journal.ndjson");
+        deadLetter = tempDir.resolve("dead-letter.ndjson");
+        ReflectionTestUtils.setField(submissionQueue, "enabled", true);
+        ReflectionTestUtils.setField(submissionQueue, "capacity", 10);
+        ReflectionTestUtils.setField(submissionQueue, "writerCount", 1);
+        ReflectionTestUtils.setField(submissionQueue, "batchSize", 50);
+        ReflectionTestUtils.setField(submissionQueue, "offerTimeoutMs", 10L);
+        ReflectionTestUtils.setField(submissionQueue, "shutdownTimeoutSeconds", 5L);
+        ReflectionTestUtils.setField(submissionQueue, "journalPath", journal.toString());
+        ReflectionTestUtils.setField(submissionQueue, "deadLetterPath", deadLetter.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        submissionQueue.shutdown();
+    }
+
+    private PendingSubmission submission(long attemptId) {
+        return new PendingSubmission(attemptId, 1L, LocalDateTime.now(), 42L, 1,
+                List.of(new PendingSubmission.GradedResponse(1L, 1L, true)));
+    }
+
+    private static String entry(long attemptId) {
+        return "{\"attemptId\":" + attemptId + ",\"quizId\":1,\"endTime\":\"2025-01-01T10:00:00\","
+                + "\"timeTakenSeconds\":30,\"score\":1,\"responses\":[{\"questionId\":1,\"optionId\":2,\"correct\":true}]}";
+    }
+
+    @Test
+    void enqueue_ShouldPersistInBackground_AndTruncateJournal() throws Exception {
+        // Arrange
+        when(submissionWriter.persist(anyList())).thenReturn(1);
+        submissionQueue.start();
+
+        // Act
+        assertTrue(submissionQueue.enqueue(submission(1L)));
+
+        // Assert
+        verify(submissionWriter, timeout(2000)).persist(anyList());
+        submissionQueue.shutdown();
+        assertEquals(1L, submissionQueue.getStats().get("persisted"));
+        assertEquals(0L, Files.size(journal));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_ShouldReplayJournaledSubmissions() throws Exception {
+        // Arrange
+        Files.writeString(journal, "{\"attemptId\":7,\"quizId\":1,\"endTime\":\"2025-01-01T10:00:00\","
+                + "\"timeTakenSeconds\":30,\"score\":1,\"responses\":[{\"questionId\":1,\"optionId\":2,\"correct\":true}]}\n");
+
+        // Act
+        submissionQueue.start();
+
+        // Assert
+        ArgumentCaptor<List<PendingSubmission>> captor = ArgumentCaptor.forClass(List.class);
+        verify(submissionWriter).persist(captor.capture());
+        PendingSubmission replayed = captor.getValue().get(0);
+        assertEquals(7L, replayed.attemptId());
+        assertEquals(2L, replayed.responses().get(0).optionId());
+        assertEquals(0L, Files.size(journal));
+    }
+
+    @Test
+    void enqueue_ShouldDeadLetterFailingSubmission_AndStillTruncateJournal() throws Exception {
+        // Arrange
+        when(submissionWriter.persist(anyList())).thenThrow(new RuntimeException("constraint violation"));
+        submissionQueue.start();
+
+        // Act
+        assertTrue(submissionQueue.enqueue(submission(1L)));
+        submissionQueue.shutdown();
+
+        // Assert
+        assertEquals(1L, submissionQueue.getStats().get("failed"));
+        assertEquals(0L, Files.size(journal));
+        List<String> deadLettered = Files.readAllLines(deadLetter);
+        assertEquals(1, deadLettered.size());
+        assertTrue(deadLettered.get(0).contains("\"attemptId\":1"));
+    }
+
+    @Test
+    void start_ShouldIsolateBadJournalEntries() throws Exception {
+        // Arrange: a good entry, an entry the database rejects and a line cut short by a crash
+        Files.writeString(journal, entry(7L) + "\n" + entry(8L) + "\n" + "{\"attemptId\":9,\"quiz");
+        when(submissionWriter.persist(anyList())).thenAnswer(invocation -> {
+            List<PendingSubmission> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(submission -> submission.attemptId() == 8L)) {
+                throw new RuntimeException("constraint violation");
+            }
+            return batch.size();
+        });
+
+        // Act
+        submissionQueue.start();
+
+        // Assert
+        assertEquals(1L, submissionQueue.getStats().get("persisted"));
+        assertEquals(2L, submissionQueue.getStats().get("failed"));
+        assertEquals(0L, Files.size(journal));
+        List<String> deadLettered = Files.readAllLines(deadLetter);
+        assertEquals(2, deadLettered.size());
+        assertTrue(deadLettered.get(0).startsWith("{\"attemptId\":9"));
+        assertTrue(deadLettered.get(1).contains("\"attemptId\":8"));
+    }
+
+    @Test
+    void enqueue_ShouldCountSkippedEntries_AndReleaseTheAttempt() throws Exception {
+        // Arrange: the attempt was closed by the expiry before the writer ran
+        when(submissionWriter.persist(anyList())).thenReturn(0);
+        submissionQueue.start();
+        assertTrue(submissionQueue.claim(1L));
+        assertFalse(submissionQueue.claim(1L));
+
+        // Act
+        assertTrue(submissionQueue.enqueue(submission(1L)));
+        submissionQueue.shutdown();
+
+        // Assert
+        assertEquals(0L, submissionQueue.getStats().get("persisted"));
+        assertEquals(1L, submissionQueue.getStats().get("skipped"));
+        assertFalse(submissionQueue.isInFlight(1L));
+    }
+
+    @Test
+    void enqueue_ShouldReject_BeforeStart() {
+        // Act & Assert
+        assertFalse(submissionQueue.enqueue(submission(1L)));
+        verifyNoInteractions(submissionWriter);
+    }
+}
@@ -10,11 +10,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -211,6 +213,30 @@ class TopicServiceTest {
         System.out.println("updateTopic test completed successfully");
     }
 
+    @Test
+    void updateTopic_ShouldBumpVersion() {
+        // Arrange
+        testTopic.setVersion(2L);
+        when(topicRepository.findById(1L)).thenReturn(Optional.of(testTopic));
+        when(topicRepository.save(testTopic)).thenReturn(testTopic);
+
+        // Act
+        Topic result = topicService.updateTopic(1L, testTopic);
+
+        // Assert
+        assertEquals(3L, result.getVersion());
+    }
+
+    @Test
+    void getTopicsFingerprint_ShouldJoinCountMaxIdAndVersionSum() {
+        // Arrange
+        List<Object[]> rows = Collections.singletonList(new Object[]{2L, 9L, 4L});
+        when(topicRepository.findFingerprint()).thenReturn(rows);
+
+        // Act & Assert
+        assertEquals("2.9.4", topicService.getTopicsFingerprint());
+    }
+
     @Test
     void updateTopic_ShouldThrowException_WhenNotExists() {
         // Arrange
@@ -353,4 +379,20 @@ class TopicServiceTest {
         verify(topicRepository, times(1)).saveAll(topicList);
         System.out.println("createMultipleTopics test completed successfully");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findConflictingTopics_ShouldReportExistingAndRepeatedNamesInOneQuery() {
+        // Arrange: "Java" exists, "Docker" is sent twice with a different case
+        Topic docker = new Topic("Docker", "Containers");
+        Topic dockerAgain = new Topic("docker", "Containers again");
+        when(topicRepository.findNamesIn(anyCollection())).thenReturn(Collections.singletonList("java"));
+
+        // Act
+        List<Topic> conflicts = topicService.findConflictingTopics(Arrays.asList(testTopic, testTopic2, docker, dockerAgain));
+
+        // Assert
+        assertEquals(Arrays.asList(testTopic, dockerAgain), conflicts);
+        verify(topicRepository, times(1)).findNamesIn(anyCollection());
+        verify(topicRepository, never()).findByName(any());
+    }
+}